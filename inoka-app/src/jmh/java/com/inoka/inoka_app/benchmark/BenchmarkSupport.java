@@ -0,0 +1,118 @@
+package com.inoka.inoka_app.benchmark;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inoka.inoka_app.model.Game;
+import com.inoka.inoka_app.model.Player;
+import com.inoka.inoka_app.service.GameJournal;
+import com.inoka.inoka_app.service.GameService;
+import com.inoka.inoka_app.service.PlayerService;
+import com.inoka.inoka_app.service.ShardRouter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * Builds GameServices with persistence and messaging replaced by in-memory stubs,
+ * so benchmarks measure game logic rather than MySQL or the broker.
+ */
+final class BenchmarkSupport {
+    static final int PLAYERS_PER_GAME = 6;
+
+    private BenchmarkSupport() {
+    }
+
+    static GameService newGameService() {
+        // Updates are dropped, there is no broadcaster listening
+        ApplicationEventPublisher publisher = event -> {};
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        // Journal disabled, appends return immediately
+        GameJournal journal = new GameJournal(registry, false, "journal", DataSize.ofMegabytes(64), Duration.ofMillis(5));
+        // Single node, every game is local
+        ShardRouter shardRouter = new ShardRouter("", "", 128, "", Duration.ofSeconds(2), Duration.ofSeconds(2));
+        return new GameService(new InMemoryPlayerService(), journal, shardRouter, publisher, new ObjectMapper(), registry, Integer.MAX_VALUE, GameService.OverflowPolicy.REJECT);
+    }
+
+    /*
+     * Fills the service with full games that have already started,
+     * so lookups run against a registry of the given size without finding a lobby
+     */
+    static void fillStartedGames(GameService gameService, int count) {
+        for (int i = 0; i < count; i++) {
+            startGame(gameService, "filler-" + i);
+        }
+    }
+
+    /*
+     * Creates a passcode game with a full table and starts it
+     * Returns the UUIDs of its players
+     */
+    static List<String> startGame(GameService gameService, String passcode) {
+        List<String> playerIds = new ArrayList<>(PLAYERS_PER_GAME);
+        Game game = null;
+        for (int i = 0; i < PLAYERS_PER_GAME; i++) {
+            Player player = new Player("bench-" + i);
+            game = gameService.createGame(passcode, player).join();
+            playerIds.add(player.getId());
+        }
+        for (String playerId : playerIds) gameService.setPlayerReady(playerId).join();
+        gameService.setGameStart(game.getId()).join();
+        return playerIds;
+    }
+
+    /*
+     * Creates a started game and plays it up to CLASH_PLAYER_TURN:
+     * every player has a card in play and an initiative value
+     * Returns the UUIDs of its players
+     */
+    static List<String> startClash(GameService gameService, String passcode) {
+        List<String> playerIds = startGame(gameService, passcode);
+        String gameId = gameService.findGameIdForPlayer(playerIds.get(0)).orElseThrow();
+        for (String playerId : playerIds) {
+            gameService.putCardInPlay(playerId, gameService.getPlayerDeck(playerId).join().orElseThrow().get(0).getId()).join();
+        }
+        gameService.setClashStart(gameId).join();
+        for (String playerId : playerIds) gameService.rollInitForPlayer(playerId).join();
+        return playerIds;
+    }
+
+    /*
+     * PlayerService backed by a map instead of PlayerRepository
+     */
+    static final class InMemoryPlayerService extends PlayerService {
+        private final Map<String, Player> players = new ConcurrentHashMap<>();
+
+        InMemoryPlayerService() {
+            super(null, null, null, null);
+        }
+
+        @Override
+        public Player addPlayer(Player player) {
+            return this.savePlayer(player);
+        }
+
+        @Override
+        public Player savePlayer(Player player) {
+            players.put(player.getId(), player);
+            return player;
+        }
+
+        @Override
+        public void queueGameIdUpdate(Player player) {
+            players.put(player.getId(), player);
+        }
+
+        @Override
+        public Optional<Player> findPlayerById(String id) {
+            return Optional.ofNullable(players.get(id));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.inoka.inoka_app.benchmark;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.inoka.inoka_app.model.Card;
+import com.inoka.inoka_app.service.GameService;
+
+/*
+ * In-game commands through GameService, each round-tripping through the game's mailbox.
+ * Contended variants have several threads acting on the same game, as a busy table would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ClashBenchmark {
+
+    private GameService gameService;
+    private List<String> playerIds;
+    // Player UUID --> Ids of the cards left in their deck when the clash started
+    private Map<String, List<String>> deckCardIds;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        gameService = BenchmarkSupport.newGameService();
+        playerIds = BenchmarkSupport.startClash(gameService, "clash");
+        deckCardIds = new HashMap<>();
+        for (String playerId : playerIds) {
+            deckCardIds.put(playerId, gameService.getPlayerDeck(playerId).join().orElseThrow().stream().map(Card::getId).toList());
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        gameService.shutdown();
+    }
+
+    /*
+     * Walks through every player's deck by card id
+     * Decks only hold 8 cards, so most plays are rejected once they are used up;
+     * the cost is dominated by the mailbox round trip and deck lookup either way
+     */
+    @Benchmark
+    public boolean putCardInPlay(Seat seat) {
+        String playerId = seat.next(playerIds);
+        return gameService.putCardInPlay(playerId, seat.nextCard(deckCardIds.get(playerId))).join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean putCardInPlayContended(Seat seat) {
+        String playerId = seat.next(playerIds);
+        return gameService.putCardInPlay(playerId, seat.nextCard(deckCardIds.get(playerId))).join();
+    }
+
+    @Benchmark
+    public int rollInitForPlayer(Seat seat) {
+        return gameService.rollInitForPlayer(seat.next(playerIds)).join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int rollInitForPlayerContended(Seat seat) {
+        return gameService.rollInitForPlayer(seat.next(playerIds)).join();
+    }
+
+    @Benchmark
+    public int resolveClashAction(Seat seat) {
+        return gameService.resolveClashAction(seat.next(playerIds), seat.target(playerIds)).join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int resolveClashActionContended(Seat seat) {
+        return gameService.resolveClashAction(seat.next(playerIds), seat.target(playerIds)).join();
+    }
+
+    // Cycles through the table's players, one cursor per benchmark thread
+    @State(Scope.Thread)
+    public static class Seat {
+        private int index;
+        private int cardIndex;
+
+        String next(List<String> playerIds) {
+            index = (index + 1) % playerIds.size();
+            return playerIds.get(index);
+        }
+
+        String nextCard(List<String> cardIds) {
+            cardIndex++;
+            return cardIds.get(cardIndex % cardIds.size());
+        }
+
+        // The player after the one last returned by next()
+        String target(List<String> playerIds) {
+            return playerIds.get((index + 1) % playerIds.size());
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.inoka.inoka_app.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.inoka.inoka_app.model.Game;
+import com.inoka.inoka_app.model.Player;
+
+/*
+ * Game and Player methods called directly, without GameService.
+ * Each thread has its own game, as each game's mailbox only runs on one thread at a time;
+ * contended variants show whether anything below the model is still shared between games.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class GameModelBenchmark {
+
+    private Game game;
+    private List<String> playerIds;
+    private int attacker;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        game = new Game();
+        playerIds = new ArrayList<>(BenchmarkSupport.PLAYERS_PER_GAME);
+        for (int i = 0; i < BenchmarkSupport.PLAYERS_PER_GAME; i++) {
+            Player player = new Player("bench-" + i);
+            game.addPlayer(player);
+            game.addCardInPlay(player.getId(), player.getDeck().get(0));
+            while (!game.addPlayerInitiativeToMap(player)) player.rollInitiative(game.getRandom());
+            playerIds.add(player.getId());
+        }
+    }
+
+    @Benchmark
+    public int determineNextInitiativeValue() {
+        return game.determineNextInitiativeValue();
+    }
+
+    @Benchmark
+    public int dealDamage() {
+        attacker = (attacker + 1) % playerIds.size();
+        return game.dealDamage(playerIds.get(attacker), playerIds.get((attacker + 1) % playerIds.size()));
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int dealDamageContended() {
+        return this.dealDamage();
+    }
+
+    // Player construction plus the deck the game deals them on joining
+    @Benchmark
+    public Player newPlayer() {
+        Player player = new Player("bench");
+        // Card ids only matter within a game
+        player.dealDeck(game.getRandom(), 1);
+        return player;
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Player newPlayerContended() {
+        return this.newPlayer();
+    }
+}
@@ -0,0 +1,86 @@
+package com.inoka.inoka_app.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import com.inoka.inoka_app.model.Game;
+import com.inoka.inoka_app.model.Player;
+import com.inoka.inoka_app.service.GameService;
+
+/*
+ * Matchmaking cost against registries of different sizes.
+ * The registry is rebuilt every iteration, so games created while measuring do not pile up.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GameServiceBenchmark {
+
+    // Started games already in memory
+    @Param({"0", "1000", "10000"})
+    public int liveGames;
+
+    private GameService gameService;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        gameService = BenchmarkSupport.newGameService();
+        BenchmarkSupport.fillStartedGames(gameService, liveGames);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        gameService.shutdown();
+    }
+
+    // Public lobby: joins the oldest open game, or opens a new one every sixth call
+    @Benchmark
+    public Game createGamePublic() {
+        return gameService.createGame(null, new Player("bench")).join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Game createGamePublicContended() {
+        return gameService.createGame(null, new Player("bench")).join();
+    }
+
+    // Passcode nobody else uses: always misses the index and opens a new game
+    @Benchmark
+    public Game createGamePasscode(PlayerCursor cursor) {
+        return gameService.createGame(cursor.nextPasscode(), new Player("bench")).join();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Game createGamePasscodeContended(PlayerCursor cursor) {
+        return gameService.createGame(cursor.nextPasscode(), new Player("bench")).join();
+    }
+
+    // Lobby lookup alone: nothing is open, so every call misses
+    @Benchmark
+    public Object joinGameMiss() {
+        return gameService.joinGame("no-such-lobby", new Player("bench")).join();
+    }
+
+    @State(Scope.Thread)
+    public static class PlayerCursor {
+        private final String prefix = "bench-" + Thread.currentThread().threadId() + "-";
+        private long next;
+
+        String nextPasscode() {
+            return prefix + next++;
+        }
+    }
+}
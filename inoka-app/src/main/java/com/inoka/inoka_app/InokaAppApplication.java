@@ -1,5 +1,7 @@
 package com.inoka.inoka_app;
 
+import java.util.Map;
+
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
@@ -7,6 +9,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class InokaAppApplication {
 
 	public static void main(String[] args) {
-		SpringApplication.run(InokaAppApplication.class, args);
+		SpringApplication application = new SpringApplication(InokaAppApplication.class);
+		// Defaults only, application.properties still takes precedence
+		application.setDefaultProperties(Map.of(
+			"management.endpoints.web.exposure.include", "health,prometheus",
+			// Keeps the actuator off the public port
+			"management.server.port", "9090"
+		));
+		application.run(args);
 	}
 }
@@ -0,0 +1,35 @@
+package com.inoka.inoka_app.config;
+
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.MessageConverter;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Opt-in CBOR encoding for STOMP game traffic, JSON stays the default.
+ * Clients opt in by subscribing to /topic/game/{id}/cbor instead of /topic/game/{id},
+ * and may send /app frames with content-type application/cbor.
+ * Binary frames need a plain WebSocket, so these clients connect to /ws-native rather than the SockJS endpoint.
+ */
+public final class CborEncoding {
+    public static final MimeType MIME_TYPE = new MimeType("application", "cbor");
+    public static final String TOPIC_SUFFIX = "/cbor";
+    // Not a bean, a second ObjectMapper in the context would replace Spring Boot's JSON one
+    public static final ObjectMapper MAPPER = Jackson2ObjectMapperBuilder.cbor().build();
+
+    private CborEncoding() {
+    }
+
+    /*
+     * Decodes inbound frames declared as application/cbor
+     * Strict, so frames & broadcasts without that content type are left to the JSON converter
+     */
+    public static MessageConverter messageConverter() {
+        MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter(MIME_TYPE);
+        converter.setObjectMapper(MAPPER);
+        converter.setStrictContentTypeMatch(true);
+        return converter;
+    }
+}
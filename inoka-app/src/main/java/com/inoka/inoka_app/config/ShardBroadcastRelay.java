@@ -0,0 +1,55 @@
+package com.inoka.inoka_app.config;
+
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import com.inoka.inoka_app.service.ShardRouter;
+
+/*
+ * Copies every game update this node broadcasts to the other nodes,
+ * whose brokers deliver it to the players connected there.
+ * Updates that arrived from another node are not copied again.
+ */
+@Component
+public class ShardBroadcastRelay implements ChannelInterceptor {
+
+    private static final String GAME_TOPIC_PREFIX = "/topic/game/";
+
+    private final ShardRouter shardRouter;
+
+    public ShardBroadcastRelay(ShardRouter shardRouter) {
+        this.shardRouter = shardRouter;
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        if (!shardRouter.isEnabled()) return message;
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        if (accessor.getMessageType() != SimpMessageType.MESSAGE
+            || destination == null || !destination.startsWith(GAME_TOPIC_PREFIX)
+            || accessor.getHeader(ShardRouter.FORWARDED_HEADER) != null
+            || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        String query = "/broadcast?destination=" + URLEncoder.encode(destination, StandardCharsets.UTF_8);
+        for (String peer : shardRouter.getPeers()) {
+            HttpRequest.Builder request = shardRouter.internalRequest(peer, query)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(payload));
+            if (accessor.getContentType() != null) request.header(HttpHeaders.CONTENT_TYPE, accessor.getContentType().toString());
+            shardRouter.sendInOrder(peer, request.build());
+        }
+        return message;
+    }
+}
@@ -0,0 +1,132 @@
+package com.inoka.inoka_app.config;
+
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inoka.inoka_app.model.GameCommand;
+import com.inoka.inoka_app.service.GameService;
+import com.inoka.inoka_app.service.ShardRouter;
+
+/*
+ * Sends STOMP frames about a game owned by another node to that node, instead of handling them here.
+ * Registered after the JWT interceptor, so every frame already carries its player.
+ * The owner handles the frame as if its player had sent it there, and broadcasts the result to every node.
+ */
+@Component
+public class ShardStompForwarder implements ChannelInterceptor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardStompForwarder.class);
+    // Frames whose payload is a GameCommand naming their game, every other frame is about its sender's game
+    private static final Set<String> GAME_COMMANDS = Set.of("/app/clashStart", "/app/clashNew", "/app/clashProcessed");
+    // Answered on this node from the owner's snapshot, the reply must reach this node's session
+    private static final String SNAPSHOT_DESTINATION = "/app/gameSnapshot";
+
+    private final ShardRouter shardRouter;
+    private final GameService gameService;
+    private final ObjectMapper objectMapper;
+    // Lazy, the channel is built with this interceptor on it
+    private final MessageChannel clientInboundChannel;
+
+    public ShardStompForwarder(
+        ShardRouter shardRouter,
+        GameService gameService,
+        ObjectMapper objectMapper,
+        @Lazy @Qualifier("clientInboundChannel") MessageChannel clientInboundChannel
+    ) {
+        this.shardRouter = shardRouter;
+        this.gameService = gameService;
+        this.objectMapper = objectMapper;
+        this.clientInboundChannel = clientInboundChannel;
+    }
+
+    public static boolean isGameCommand(String destination) {
+        return GAME_COMMANDS.contains(destination);
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        if (!shardRouter.isEnabled()) return message;
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        String destination = accessor.getDestination();
+        Principal user = accessor.getUser();
+        if (!StompCommand.SEND.equals(accessor.getCommand())
+            || accessor.getHeader(ShardRouter.FORWARDED_HEADER) != null
+            || destination == null || !destination.startsWith("/app/")
+            || destination.equals(SNAPSHOT_DESTINATION)
+            || user == null
+            || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+
+        if (isGameCommand(destination)) {
+            return this.route(message, accessor, payload, this.readGameId(payload, accessor.getContentType()).map(shardRouter::ownerOfGame));
+        }
+        CompletableFuture<Optional<String>> owner = gameService.findPlayerNodeAsync(user.getName());
+        if (owner.isDone()) return this.route(message, accessor, payload, owner.join());
+
+        // Never waits on the other nodes on the inbound channel, the frame carries on once they have answered
+        owner.thenAccept(found -> {
+            Message<?> local = this.route(message, accessor, payload, found);
+            // Handled here after all, sent back in marked as routed so it is not looked up again
+            if (local != null) clientInboundChannel.send(MessageBuilder.fromMessage(local).setHeader(ShardRouter.FORWARDED_HEADER, true).build());
+        });
+        return null;
+    }
+
+    /*
+     * Sends the frame to its owner node & returns null,
+     * or returns the frame to be handled here if this node owns it or no node does
+     */
+    private Message<?> route(Message<?> message, StompHeaderAccessor accessor, byte[] payload, Optional<String> owner) {
+        if (owner.isEmpty() || shardRouter.isSelf(owner.get())) return message;
+
+        String destination = accessor.getDestination();
+        String playerId = accessor.getUser().getName();
+        String query = "/stomp?destination=" + URLEncoder.encode(destination, StandardCharsets.UTF_8)
+            + "&userId=" + URLEncoder.encode(playerId, StandardCharsets.UTF_8);
+        HttpRequest.Builder request = shardRouter.internalRequest(owner.get(), query)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(payload));
+        if (accessor.getContentType() != null) request.header(HttpHeaders.CONTENT_TYPE, accessor.getContentType().toString());
+
+        shardRouter.sendInOrder(owner.get(), request.build()).thenAccept(status -> {
+            // The player is no longer seated there, look them up again next time
+            if (status == 404) shardRouter.forgetPlayer(playerId);
+            else if (status != 202) logger.warn("Node {} did not accept {} from {}: {}", owner.get(), destination, playerId, status);
+        });
+        // Handled by the owner, dropped here
+        return null;
+    }
+
+    // Decoded the way the controller will bind it, a frame that cannot be read is left to this node to reject
+    private Optional<String> readGameId(byte[] payload, MimeType contentType) {
+        ObjectMapper mapper = (contentType != null && CborEncoding.MIME_TYPE.equalsTypeAndSubtype(contentType)) ? CborEncoding.MAPPER : objectMapper;
+        try {
+            return Optional.ofNullable(mapper.readValue(payload, GameCommand.class).gameId());
+        }
+        catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+}
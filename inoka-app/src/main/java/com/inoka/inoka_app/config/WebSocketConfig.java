@@ -1,11 +1,13 @@
 package com.inoka.inoka_app.config;
 
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.lang.NonNull;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.WebSocketHandler;
@@ -21,9 +23,17 @@ import com.inoka.inoka_app.security.JwtWebSocketInterceptor;
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     
     private final JwtWebSocketInterceptor jwtWebSocketInterceptor;
+    private final ShardStompForwarder shardStompForwarder;
+    private final ShardBroadcastRelay shardBroadcastRelay;
     
-    public WebSocketConfig(JwtWebSocketInterceptor jwtWebSocketInterceptor) {
+    public WebSocketConfig(
+        JwtWebSocketInterceptor jwtWebSocketInterceptor,
+        ShardStompForwarder shardStompForwarder,
+        ShardBroadcastRelay shardBroadcastRelay
+    ) {
         this.jwtWebSocketInterceptor = jwtWebSocketInterceptor;
+        this.shardStompForwarder = shardStompForwarder;
+        this.shardBroadcastRelay = shardBroadcastRelay;
     }
     
     @Override
@@ -35,6 +45,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         config.setApplicationDestinationPrefixes("/app");
 
         config.setUserDestinationPrefix("/user");
+
+        // Game updates also go to the other nodes, for players connected there
+        config.configureBrokerChannel().interceptors(shardBroadcastRelay);
     }
     
     @Override
@@ -60,12 +73,25 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 }
             })
             .withSockJS();
+
+        // Plain WebSocket for clients using binary (CBOR) frames, which SockJS cannot carry
+        registry.addEndpoint("/ws-native")
+            .setAllowedOrigins("http://localhost:4200");
+    }
+
+    @Override
+    public boolean configureMessageConverters(@NonNull List<MessageConverter> messageConverters) {
+        // Only used for frames declared as application/cbor, JSON stays the default
+        messageConverters.add(CborEncoding.messageConverter());
+        // Keep the default String, byte[] & JSON converters
+        return true;
     }
     
     @Override
     public void configureClientInboundChannel(@NonNull ChannelRegistration registration) {
         // This intercepts ALL client→server messages (CONNECT, SUBSCRIBE, SEND)
         // Authentication is enforced here
-        registration.interceptors(jwtWebSocketInterceptor);
+        // Frames about games owned by another node are then sent there
+        registration.interceptors(jwtWebSocketInterceptor, shardStompForwarder);
     }
 }
@@ -9,8 +9,10 @@ import com.inoka.inoka_app.model.PlayerEntry;
 import com.inoka.inoka_app.security.JwtUtil;
 import com.inoka.inoka_app.security.PlayerPrincipal;
 import com.inoka.inoka_app.service.GameService;
+import com.inoka.inoka_app.service.GameSnapshot;
 import com.inoka.inoka_app.service.PlayerService;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -22,6 +24,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -38,15 +41,19 @@ public class GameController {
     private final PlayerService playerService;
     private final GameService gameService;
     private final JwtUtil jwtUtil;
+    // Upper bound on guests registered by one bulk call
+    private final int maxBulkRegistrations;
 
     public GameController(
         PlayerService playerService,
         GameService gameService,
-        JwtUtil jwtUtil
+        JwtUtil jwtUtil,
+        @Value("${inoka.players.registration.max-bulk:16}") int maxBulkRegistrations
     ) {
         this.playerService = playerService;
         this.gameService = gameService;
         this.jwtUtil = jwtUtil;
+        this.maxBulkRegistrations = maxBulkRegistrations;
     }
 
     @Deprecated
@@ -70,8 +77,9 @@ public class GameController {
     public ResponseEntity<Map<String, Object>> addPlayer(@RequestBody Player player) {
         PlayerEntry pEntry;
         if (player.getId() == null || player.getId().isEmpty()) {
+            // A fresh UUID cannot exist yet, inserted without looking it up first
             Player newPlayer = new Player(player.getName());
-            pEntry = new PlayerEntry(playerService.addPlayer(newPlayer));
+            pEntry = new PlayerEntry(playerService.registerPlayer(newPlayer).join());
         }
         else {
             pEntry = new PlayerEntry(playerService.addPlayer(player));
@@ -87,6 +95,29 @@ public class GameController {
         return new ResponseEntity<>(response, HttpStatus.CREATED);
     }
 
+    /*
+     * Registers one guest per name in a single call, for a signed-in player seating guests at their table
+     * Returns each guest with its token, in the order the names were given
+     */
+    @PostMapping("/player/add/bulk")
+    public ResponseEntity<List<Map<String, Object>>> addPlayers(@RequestBody List<String> names) {
+        if (names == null || names.isEmpty() || names.size() > maxBulkRegistrations) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+
+        List<Player> players = playerService.registerPlayers(names.stream().map(Player::new).toList()).join();
+        List<String> tokens = jwtUtil.generateTokens(players.stream().map(Player::getId).toList());
+
+        List<Map<String, Object>> response = new ArrayList<>(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("player", new PlayerEntry(players.get(i)));
+            entry.put("token", tokens.get(i));
+            response.add(entry);
+        }
+        return new ResponseEntity<>(response, HttpStatus.CREATED);
+    }
+
     @PostMapping("/player/refresh-token")
     public ResponseEntity<Map<String, Object>> refreshToken(@RequestBody Map<String, String> request) {
         String playerId = request.get("playerId");
@@ -148,7 +179,7 @@ public class GameController {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
     
-        Optional<List<Card>> cardCheck = gameService.getPlayerDeck(principal.getUserId());
+        Optional<List<Card>> cardCheck = gameService.getPlayerDeck(principal.getUserId()).join();
         return cardCheck.isPresent() ? ResponseEntity.ok(cardCheck.get()) : new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
@@ -161,8 +192,12 @@ public class GameController {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
     
-        Player player = principal.getPlayer();
-        Game game = gameService.createGame(passcode, player);
+        // The principal's Player may be cached & shared across requests, the game gets its own copy
+        Optional<Player> player = playerService.findPlayerById(principal.getUserId());
+        if (player.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        Game game = gameService.createGame(passcode, player.get()).join();
     
         if (game == null || game.getId() == null || game.getId().isEmpty()) {
             return ResponseEntity.badRequest().contentType(MediaType.TEXT_PLAIN).body("Error: Could not join game.");
@@ -172,16 +207,32 @@ public class GameController {
     }
 
     @GetMapping("/game/find")
-    public ResponseEntity<Game> findGameByGameId(@AuthenticationPrincipal PlayerPrincipal principal) {
+    public ResponseEntity<byte[]> findGameByGameId(@AuthenticationPrincipal PlayerPrincipal principal) {
         if (principal == null) {
             return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
         }
     
-        Player player = principal.getPlayer();
-        Optional<Game> game = gameService.getGameById(player.getGameId());
+        Optional<String> gameId = gameService.findGameIdForPlayer(principal.getUserId());
+        if (gameId.isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+        // Shares the bytes serialized for the STOMP broadcast of the same version
+        Optional<GameSnapshot> snapshot = gameService.getSnapshot(gameId.get()).join();
         
         // TODO: Should only return information relevant to the player
-        return game.isPresent() ? ResponseEntity.ok(game.get()) : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        return snapshot.isPresent()
+            ? ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(snapshot.get().getJson())
+            : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+    
+    @DeleteMapping("/game/leave")
+    public ResponseEntity<?> leaveGame(@AuthenticationPrincipal PlayerPrincipal principal) {
+        if (principal == null) {
+            return new ResponseEntity<>(HttpStatus.UNAUTHORIZED);
+        }
+
+        boolean left = gameService.removePlayerFromGame(principal.getUserId()).join();
+        return left ? new ResponseEntity<>(HttpStatus.OK) : new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
     
     @Deprecated
@@ -193,7 +244,7 @@ public class GameController {
     
     @GetMapping("/game/players")
     public ResponseEntity<List<Player>> getPlayersInGame(@RequestParam String id) {
-        Optional<List<Player>> playersList = gameService.getPlayersInGame(id);
+        Optional<List<Player>> playersList = gameService.getPlayersInGame(id).join();
         if (playersList.isPresent()) {
             List<Player> players = playersList.get();
             return ResponseEntity.ok(players);
@@ -205,7 +256,7 @@ public class GameController {
 
     @PutMapping(value = "/player/ready", consumes = MediaType.TEXT_PLAIN_VALUE)
     public ResponseEntity<String> setPlayerReady(@RequestBody String id) {
-        boolean success = gameService.setPlayerReady(id);
+        boolean success = gameService.setPlayerReady(id).join();
         if (success) {
             return ResponseEntity.ok("Player readied up.");
         } else {
@@ -215,7 +266,7 @@ public class GameController {
 
     @GetMapping("/game/ready")
     public ResponseEntity<Boolean> allPlayersReady(@RequestParam String id) {
-        Optional<Boolean> arePlayersReady = gameService.allPlayersReady(id);
+        Optional<Boolean> arePlayersReady = gameService.allPlayersReady(id).join();
         if (arePlayersReady.isPresent()) {
             if (arePlayersReady.get()) return ResponseEntity.ok(true);
             else return ResponseEntity.status(206).body(false);
@@ -225,48 +276,48 @@ public class GameController {
     
     @PutMapping(value = "/game/start", consumes = MediaType.TEXT_PLAIN_VALUE)
     public ResponseEntity<?> startGame(@RequestBody String id) {
-        boolean result = gameService.setGameStart(id);
+        boolean result = gameService.setGameStart(id).join();
         return result ? new ResponseEntity<>(HttpStatus.OK) : new ResponseEntity<>(HttpStatus.CONFLICT);
     }
 
     @PutMapping(value = "/game/clash/start", consumes = MediaType.TEXT_PLAIN_VALUE)
     public ResponseEntity<?> startClash(@RequestBody String id) {
-        boolean result = gameService.setClashStart(id);
+        boolean result = gameService.setClashStart(id).join();
         if (result) return new ResponseEntity<>(HttpStatus.OK);
         return ResponseEntity.status(403).body("Unable to set GameState to CLASH_ROLL_INIT.");
     }
 
     @PutMapping(value = "/game/clash/processed", consumes = MediaType.TEXT_PLAIN_VALUE)
     public ResponseEntity<?> clashProcessed(@RequestBody String id) {
-        boolean result = gameService.setClashFinishedProcessing(id);
+        boolean result = gameService.setClashFinishedProcessing(id).join();
         if (result) return new ResponseEntity<>(HttpStatus.OK);
         return ResponseEntity.status(403).body("Unable to set GameState to CLASH_PLAYER_TURN.");
     }
 
     @GetMapping("/player/rollinit")
     public ResponseEntity<Integer> rollInitiativeForPlayer(@RequestParam String id) {
-        int result = gameService.rollInitForPlayer(id);
+        int result = gameService.rollInitForPlayer(id).join();
         if (result == -1) return new ResponseEntity<>(HttpStatus.NOT_FOUND);
         return ResponseEntity.ok(result);
     }
 
     @DeleteMapping("/player/cardInPlay")
     public ResponseEntity<?> removeCardInPlay(@RequestParam String id) {
-        boolean result = gameService.removePlayerCardInPlay(id);
+        boolean result = gameService.removePlayerCardInPlay(id).join();
         if (result) return new ResponseEntity<>(HttpStatus.OK);
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
     @PutMapping(value = "/player/gotKnockout", consumes = MediaType.TEXT_PLAIN_VALUE)
     public ResponseEntity<?> playerPickUpKnockout(@RequestBody String id) {
-        boolean result = gameService.playerPickUpKnockout(id);
+        boolean result = gameService.playerPickUpKnockout(id).join();
         if (result) return new ResponseEntity<>(HttpStatus.OK);
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
 
     @PutMapping(value = "/player/wonClash", consumes = MediaType.TEXT_PLAIN_VALUE)
     public ResponseEntity<?> playerWonClash(@RequestBody String id) {
-        boolean result = gameService.playerWonClash(id);
+        boolean result = gameService.playerWonClash(id).join();
         if (result) return new ResponseEntity<>(HttpStatus.OK);
         return new ResponseEntity<>(HttpStatus.NOT_FOUND);
     }
@@ -1,7 +1,11 @@
 package com.inoka.inoka_app.controller;
 
+import java.io.IOException;
+import java.net.URLEncoder;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.security.Principal;
-import java.util.Map;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -9,21 +13,32 @@ import org.springframework.context.event.EventListener;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.annotation.SendToUser;
 import org.springframework.messaging.simp.stomp.StompCommand;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.inoka.inoka_app.model.Card;
+import com.inoka.inoka_app.model.ClashActionCommand;
+import com.inoka.inoka_app.model.GameCommand;
+import com.inoka.inoka_app.model.GameDelta;
+import com.inoka.inoka_app.model.PlayerCommand;
+import com.inoka.inoka_app.model.PlayCardCommand;
 import com.inoka.inoka_app.service.GameService;
+import com.inoka.inoka_app.service.GameSnapshot;
+import com.inoka.inoka_app.service.ShardRouter;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @RestController
 public class GameWebSocketController {
     private final GameService gameService;
+    private final ShardRouter shardRouter;
+    private final ObjectMapper objectMapper;
     private static final Logger logger = LoggerFactory.getLogger(GameWebSocketController.class);
     
-    public GameWebSocketController(GameService gameService) {
+    public GameWebSocketController(GameService gameService, ShardRouter shardRouter, ObjectMapper objectMapper) {
         this.gameService = gameService;
+        this.shardRouter = shardRouter;
+        this.objectMapper = objectMapper;
     }
 
     @EventListener
@@ -39,12 +54,13 @@ public class GameWebSocketController {
     }
 
     @MessageMapping("/playerReady")
-    public void handlePlayerReady(@Payload String playerId, Principal principal) {
+    public void handlePlayerReady(@Payload PlayerCommand command, Principal principal) {
         if (principal == null) {
             logger.warn("Unauthorized attempt to mark player ready");
             return;
         }
         
+        String playerId = command.playerId();
         String authenticatedUserId = principal.getName();
         if (!authenticatedUserId.equals(playerId)) {
             logger.warn("Player " + authenticatedUserId + " attempting to modify player " + playerId);
@@ -54,41 +70,84 @@ public class GameWebSocketController {
         gameService.setPlayerReady(playerId);
     }
 
+    /*
+     * Sends the full game to a client that fell behind on delta updates
+     */
+    @MessageMapping("/gameSnapshot")
+    @SendToUser("/queue/game")
+    public GameDelta handleGameSnapshot(Principal principal) {
+        if (principal == null) {
+            logger.warn("Unauthorized game snapshot request");
+            return null;
+        }
+        Optional<String> gameId = gameService.findGameIdForPlayer(principal.getName());
+        if (gameId.isEmpty()) return this.fetchRemoteSnapshot(principal.getName());
+        Optional<GameSnapshot> snapshot = gameService.getSnapshot(gameId.get()).join();
+        return snapshot.map(s -> GameDelta.snapshot(s.getGameId(), s.getVersion(), s.getTree())).orElse(null);
+    }
+
+    /*
+     * The player's game lives on another node, the reply still has to go out through this node's session
+     */
+    private GameDelta fetchRemoteSnapshot(String playerId) {
+        Optional<String> owner = gameService.findPlayerNode(playerId);
+        if (owner.isEmpty() || shardRouter.isSelf(owner.get())) return null;
+        try {
+            String query = "/snapshot?playerId=" + URLEncoder.encode(playerId, StandardCharsets.UTF_8);
+            HttpResponse<byte[]> response = shardRouter.exchange(shardRouter.internalRequest(owner.get(), query).GET().build());
+            if (response.statusCode() != 200) {
+                if (response.statusCode() == 404) shardRouter.forgetPlayer(playerId);
+                return null;
+            }
+            String gameId = response.headers().firstValue(ShardController.GAME_ID_HEADER).orElse(null);
+            long version = response.headers().firstValueAsLong(ShardController.GAME_VERSION_HEADER).orElse(0);
+            return GameDelta.snapshot(gameId, version, objectMapper.readTree(response.body()));
+        }
+        catch (IOException e) {
+            logger.warn("Could not fetch game snapshot for " + playerId + " from " + owner.get() + ": " + e);
+            return null;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
     @MessageMapping("/clashStart")
-    public void handleClashStart(@Payload String gameId, Principal principal) {
+    public void handleClashStart(@Payload GameCommand command, Principal principal) {
         if (principal == null) {
             logger.warn("Unauthorized clash start attempt");
             return;
         }
-        gameService.setClashStart(gameId);
+        gameService.setClashStart(command.gameId());
     }
 
     @MessageMapping("/clashNew")
-    public void handleNewClash(@Payload String gameId, Principal principal) {
+    public void handleNewClash(@Payload GameCommand command, Principal principal) {
         if (principal == null) {
             logger.warn("Unauthorized new clash attempt");
             return;
         }
-        gameService.startNewClash(gameId);
+        gameService.startNewClash(command.gameId());
     }
 
     @MessageMapping("/clashProcessed")
-    public void handleClashProcessed(@Payload String gameId, Principal principal) {
+    public void handleClashProcessed(@Payload GameCommand command, Principal principal) {
         if (principal == null) {
             logger.warn("Unauthorized clash processed attempt");
             return;
         }
-        gameService.setClashFinishedProcessing(gameId);
+        gameService.setClashFinishedProcessing(command.gameId());
     }
 
     @MessageMapping("/playCard")
-    public void handlePlayCard(@Payload Map<String, Object> payload, Principal principal) {
+    public void handlePlayCard(@Payload PlayCardCommand command, Principal principal) {
         if (principal == null) {
             logger.warn("Unauthorized card play attempt");
             return;
         }
         
-        String playerId = (String) payload.get("playerId");
+        String playerId = command.playerId();
         String authenticatedUserId = principal.getName();
         
         if (!authenticatedUserId.equals(playerId)) {
@@ -96,19 +155,17 @@ public class GameWebSocketController {
             return;
         }
         
-        ObjectMapper objectMapper = new ObjectMapper();
-        Card card = objectMapper.convertValue(payload.get("card"), Card.class);
-        gameService.putCardInPlay(playerId, card);
+        gameService.putCardInPlay(playerId, command.cardId());
     }
 
     @MessageMapping("/clashAction")
-    public void handleClashAction(@Payload Map<String, Object> payload, Principal principal) {
+    public void handleClashAction(@Payload ClashActionCommand command, Principal principal) {
         if (principal == null) {
             logger.warn("Unauthorized clash action attempt");
             return;
         }
         
-        String dealingPlayerId = (String) payload.get("userId");
+        String dealingPlayerId = command.userId();
         String authenticatedUserId = principal.getName();
         
         if (!authenticatedUserId.equals(dealingPlayerId)) {
@@ -116,17 +173,17 @@ public class GameWebSocketController {
             return;
         }
         
-        String receivingPlayerId = (String) payload.get("targetId");
-        gameService.resolveClashAction(dealingPlayerId, receivingPlayerId);
+        gameService.resolveClashAction(dealingPlayerId, command.targetId());
     }
 
     @MessageMapping("/gotKnockout")
-    public void handlePlayerPickUpKnockout(@Payload String playerId, Principal principal) {
+    public void handlePlayerPickUpKnockout(@Payload PlayerCommand command, Principal principal) {
         if (principal == null) {
             logger.warn("Unauthorized knockout attempt");
             return;
         }
         
+        String playerId = command.playerId();
         String authenticatedUserId = principal.getName();
         if (!authenticatedUserId.equals(playerId)) {
             logger.warn("Player " + authenticatedUserId + " attempting to pickup knockout for player " + playerId);
@@ -137,12 +194,13 @@ public class GameWebSocketController {
     }
 
     @MessageMapping("/clashForfeit")
-    public void handlePlayerForfeitClash(@Payload String playerId, Principal principal) {
+    public void handlePlayerForfeitClash(@Payload PlayerCommand command, Principal principal) {
         if (principal == null) {
             logger.warn("Unauthorized forfeit attempt");
             return;
         }
         
+        String playerId = command.playerId();
         String authenticatedUserId = principal.getName();
         if (!authenticatedUserId.equals(playerId)) {
             logger.warn("Player " + authenticatedUserId + " attempting to forfeit for player " + playerId);
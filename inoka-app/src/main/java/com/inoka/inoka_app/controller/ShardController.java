@@ -0,0 +1,140 @@
+package com.inoka.inoka_app.controller;
+
+import java.util.HashMap;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.util.MimeType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.inoka.inoka_app.config.ShardStompForwarder;
+import com.inoka.inoka_app.security.PlayerPrincipal;
+import com.inoka.inoka_app.service.CustomUserDetailsService;
+import com.inoka.inoka_app.service.GameService;
+import com.inoka.inoka_app.service.GameSnapshot;
+import com.inoka.inoka_app.service.ShardRouter;
+
+/*
+ * Endpoints other nodes of the cluster call, never clients
+ * Every call must carry the shared shard secret
+ */
+@RestController
+@RequestMapping(ShardRouter.INTERNAL_PATH)
+public class ShardController {
+    // Headers of /snapshot responses, the body is the game's JSON
+    public static final String GAME_ID_HEADER = "X-Inoka-Game-Id";
+    public static final String GAME_VERSION_HEADER = "X-Inoka-Game-Version";
+
+    private final ShardRouter shardRouter;
+    private final GameService gameService;
+    private final CustomUserDetailsService userDetailsService;
+    private final MessageChannel clientInboundChannel;
+    private final SimpMessagingTemplate messagingTemplate;
+
+    public ShardController(
+        ShardRouter shardRouter,
+        GameService gameService,
+        CustomUserDetailsService userDetailsService,
+        @Qualifier("clientInboundChannel") MessageChannel clientInboundChannel,
+        SimpMessagingTemplate messagingTemplate
+    ) {
+        this.shardRouter = shardRouter;
+        this.gameService = gameService;
+        this.userDetailsService = userDetailsService;
+        this.clientInboundChannel = clientInboundChannel;
+        this.messagingTemplate = messagingTemplate;
+    }
+
+    // UUID of the game the player is seated in on this node
+    @GetMapping(value = "/player-game", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> findPlayerGame(
+        @RequestHeader(name = ShardRouter.SECRET_HEADER, required = false) String secret,
+        @RequestParam String playerId
+    ) {
+        if (!shardRouter.isTrusted(secret)) return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        Optional<String> gameId = gameService.findGameIdForPlayer(playerId);
+        return gameId.isPresent() ? ResponseEntity.ok(gameId.get()) : new ResponseEntity<>(HttpStatus.NOT_FOUND);
+    }
+
+    // Current JSON of the game the player is seated in, for snapshot requests that reached another node
+    @GetMapping("/snapshot")
+    public ResponseEntity<byte[]> getSnapshot(
+        @RequestHeader(name = ShardRouter.SECRET_HEADER, required = false) String secret,
+        @RequestParam String playerId
+    ) {
+        if (!shardRouter.isTrusted(secret)) return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        Optional<String> gameId = gameService.findGameIdForPlayer(playerId);
+        Optional<GameSnapshot> snapshot = gameId.isPresent() ? gameService.getSnapshot(gameId.get()).join() : Optional.empty();
+        if (snapshot.isEmpty()) return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        return ResponseEntity.ok()
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(GAME_ID_HEADER, snapshot.get().getGameId())
+            .header(GAME_VERSION_HEADER, Long.toString(snapshot.get().getVersion()))
+            .body(snapshot.get().getJson());
+    }
+
+    /*
+     * A STOMP SEND frame a player sent to another node
+     * Handled as if the player had sent it here
+     * Player commands are refused with 404 if the player is no longer seated on this node
+     */
+    @PostMapping("/stomp")
+    public ResponseEntity<?> receiveFrame(
+        @RequestHeader(name = ShardRouter.SECRET_HEADER, required = false) String secret,
+        @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+        @RequestParam String destination,
+        @RequestParam String userId,
+        @RequestBody(required = false) byte[] payload
+    ) {
+        if (!shardRouter.isTrusted(secret)) return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        if (!ShardStompForwarder.isGameCommand(destination) && gameService.findGameIdForPlayer(userId).isEmpty()) {
+            return new ResponseEntity<>(HttpStatus.NOT_FOUND);
+        }
+
+        PlayerPrincipal principal = userDetailsService.loadUserById(userId);
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        accessor.setDestination(destination);
+        accessor.setUser(new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities()));
+        accessor.setSessionId(ShardRouter.FORWARDED_HEADER);
+        accessor.setSessionAttributes(new HashMap<>());
+        accessor.setHeader(ShardRouter.FORWARDED_HEADER, true);
+        if (contentType != null) accessor.setContentType(MimeType.valueOf(contentType));
+        clientInboundChannel.send(MessageBuilder.createMessage((payload != null) ? payload : new byte[0], accessor.getMessageHeaders()));
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+
+    // A game update broadcast by the game's owner, handed to this node's broker for its own subscribers
+    @PostMapping("/broadcast")
+    public ResponseEntity<?> receiveBroadcast(
+        @RequestHeader(name = ShardRouter.SECRET_HEADER, required = false) String secret,
+        @RequestHeader(name = HttpHeaders.CONTENT_TYPE, required = false) String contentType,
+        @RequestParam String destination,
+        @RequestBody byte[] payload
+    ) {
+        if (!shardRouter.isTrusted(secret)) return new ResponseEntity<>(HttpStatus.FORBIDDEN);
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        if (contentType != null) accessor.setContentType(MimeType.valueOf(contentType));
+        accessor.setHeader(ShardRouter.FORWARDED_HEADER, true);
+        accessor.setLeaveMutable(true);
+        messagingTemplate.send(destination, MessageBuilder.createMessage(payload, accessor.getMessageHeaders()));
+        return new ResponseEntity<>(HttpStatus.ACCEPTED);
+    }
+}
@@ -0,0 +1,183 @@
+package com.inoka.inoka_app.controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.inoka.inoka_app.security.PlayerPrincipal;
+import com.inoka.inoka_app.service.GameService;
+import com.inoka.inoka_app.service.ShardRouter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Sends /inoka requests for a game owned by another node to that node, and relays its response.
+ * Runs after the JWT filter so requests keyed by the caller know who the caller is.
+ * Requests that are not about a game, or whose game cannot be found anywhere, are handled here.
+ */
+public class ShardForwardingFilter extends OncePerRequestFilter {
+
+    // Requests naming their game or player in a text/plain body
+    private static final Set<String> BODY_KEYED = Set.of(
+        "/inoka/game/start", "/inoka/game/clash/start", "/inoka/game/clash/processed",
+        "/inoka/player/ready", "/inoka/player/gotKnockout", "/inoka/player/wonClash"
+    );
+    private static final List<String> COPIED_HEADERS = List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.CONTENT_TYPE, HttpHeaders.ACCEPT);
+
+    private final ShardRouter shardRouter;
+    private final GameService gameService;
+
+    public ShardForwardingFilter(ShardRouter shardRouter, GameService gameService) {
+        this.shardRouter = shardRouter;
+        this.gameService = gameService;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return !shardRouter.isEnabled()
+            || !this.pathOf(request).startsWith("/inoka/")
+            || request.getHeader(ShardRouter.FORWARDED_HEADER) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(
+        @NonNull HttpServletRequest request,
+        @NonNull HttpServletResponse response,
+        @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String path = this.pathOf(request);
+        byte[] body = null;
+        HttpServletRequest local = request;
+        if (BODY_KEYED.contains(path)) {
+            // Read once to route on, replayed to the controller if handled here
+            body = request.getInputStream().readAllBytes();
+            local = new CachedBodyRequest(request, body);
+        }
+
+        String bodyText = (body != null) ? new String(body, StandardCharsets.UTF_8).trim() : null;
+        String playerId = null;
+        Optional<String> owner = switch (path) {
+            case "/inoka/game/create" -> Optional.of(shardRouter.ownerOfLobby(request.getParameter("passcode")));
+            case "/inoka/game/players", "/inoka/game/ready" -> Optional.of(shardRouter.ownerOfGame(request.getParameter("id")));
+            case "/inoka/game/start", "/inoka/game/clash/start", "/inoka/game/clash/processed" -> Optional.of(shardRouter.ownerOfGame(bodyText));
+            case "/inoka/player/card/all", "/inoka/game/find", "/inoka/game/leave" -> gameService.findPlayerNode(playerId = principalId());
+            case "/inoka/player/rollinit", "/inoka/player/cardInPlay" -> gameService.findPlayerNode(playerId = request.getParameter("id"));
+            case "/inoka/player/ready", "/inoka/player/gotKnockout", "/inoka/player/wonClash" -> gameService.findPlayerNode(playerId = bodyText);
+            default -> Optional.empty();
+        };
+        if (owner.isEmpty() || shardRouter.isSelf(owner.get())) {
+            filterChain.doFilter(local, response);
+            return;
+        }
+
+        HttpResponse<byte[]> answer = this.forward(owner.get(), request, body);
+        if (answer == null) {
+            response.sendError(HttpStatus.BAD_GATEWAY.value());
+            return;
+        }
+        int status = answer.statusCode();
+        if (path.equals("/inoka/game/create") && status == 200) {
+            shardRouter.rememberPlayerGame(principalId(), new String(answer.body(), StandardCharsets.UTF_8));
+        }
+        // The player left, or the game they were thought to be in no longer has them
+        else if (playerId != null && (status == 404 || (path.equals("/inoka/game/leave") && status == 200))) {
+            shardRouter.forgetPlayer(playerId);
+        }
+
+        response.setStatus(status);
+        answer.headers().firstValue(HttpHeaders.CONTENT_TYPE).ifPresent(response::setContentType);
+        response.getOutputStream().write(answer.body());
+    }
+
+    // Null if the owner could not be reached
+    private HttpResponse<byte[]> forward(String owner, HttpServletRequest request, byte[] body) {
+        String query = request.getQueryString();
+        HttpRequest.Builder builder = shardRouter.request(owner, request.getRequestURI() + ((query != null) ? "?" + query : ""));
+        for (String header : COPIED_HEADERS) {
+            String value = request.getHeader(header);
+            if (value != null) builder.header(header, value);
+        }
+        builder.method(request.getMethod(), (body != null) ? HttpRequest.BodyPublishers.ofByteArray(body) : HttpRequest.BodyPublishers.noBody());
+        try {
+            return shardRouter.exchange(builder.build());
+        }
+        catch (IOException e) {
+            logger.warn("Could not forward " + request.getRequestURI() + " to " + owner + ": " + e);
+            return null;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private String pathOf(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    private static String principalId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return (authentication != null && authentication.getPrincipal() instanceof PlayerPrincipal principal)
+            ? principal.getUserId()
+            : null;
+    }
+
+    // Serves an already read body to the rest of the chain
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(@NonNull byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+}
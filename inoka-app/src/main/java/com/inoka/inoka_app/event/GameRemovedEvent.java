@@ -0,0 +1,38 @@
+package com.inoka.inoka_app.event;
+
+import org.springframework.context.ApplicationEvent;
+
+public class GameRemovedEvent extends ApplicationEvent {
+
+    public enum Reason {
+        // Removed explicitly through GameService.removeGame
+        REMOVED,
+        // Last player left
+        EMPTY,
+        // Expired by state-specific TTL
+        FINISHED_TTL,
+        LOBBY_TTL,
+        IDLE_TTL,
+        // No player connected for longer than the disconnect grace period
+        DISCONNECTED,
+        // Evicted to make room under the live game cap
+        OVERFLOW
+    }
+
+    private final String gameId;
+    private final Reason reason;
+
+    public GameRemovedEvent(Object source, String gameId, Reason reason) {
+        super(source);
+        this.gameId = gameId;
+        this.reason = reason;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
@@ -1,113 +1,64 @@
 package com.inoka.inoka_app.model;
 
-import java.util.Objects;
-import java.util.Random;
-import java.util.UUID;
-
-import com.fasterxml.jackson.annotation.JsonProperty;
-
+/*
+ * Read-only view of a packed card, in the JSON shape clients expect
+ * Games hold cards packed (see PackedCard), views are built when a deck or the cards in play are read
+ */
 public class Card {
-    private String id;
-    private CardStyle style;
-    private int level;
-    private int maxHp;
-    private int curHp;
-    private boolean hasTotem;
-    private int taunterCharges;
+    private final long bits;
 
-    public Card(@JsonProperty("style") CardStyle style, @JsonProperty("level") int level) {
-        this.id = UUID.randomUUID().toString();
-        this.style = style;
-        this.level = level;
-        this.maxHp = this.rollHitDice(level);
-        this.curHp = this.maxHp;
-        this.hasTotem = false;
-        this.taunterCharges = 0;
+    Card(long bits) {
+        this.bits = bits;
     }
 
-    private int rollHitDice(int level) {
-        Random rand = new Random();
-        int hitPoints = 0;
-        for (int i = 0; i < level; i++) {
-            hitPoints += rand.nextInt(12) + 1 + level;
-        }
-        if (this.style == CardStyle.DEFENDER) {
-            hitPoints += (rand.nextInt(4) + 1) * level;
-        }
-        return hitPoints;
+    // Packed form, for handing the card back to its game
+    long bits() {
+        return bits;
     }
 
-    public void generateTaunterCharges(int roll) {
-        if (roll <= 4) {
-            this.taunterCharges = 1;
-        }
-        else if ((5 <= roll) && (roll <= 8)) {
-            this.taunterCharges = 2;
-        }
-        else if (roll >= 9) {
-            this.taunterCharges = 3;
-        }
-    }
     public boolean hasTaunterCharges() {
-        return (taunterCharges > 0);
-    }
-    public boolean decTaunterCharges() {
-        if (taunterCharges < 1) {
-            return false;
-        } else {
-            this.taunterCharges -= 1;
-            return true;
-        }
+        return (PackedCard.taunterCharges(bits) > 0);
     }
 
+    // Unique within the card's game
     public String getId() {
-        return id;
+        return Integer.toString(PackedCard.id(bits));
     }
 
     public CardStyle getStyle() {
-        return style;
+        return PackedCard.style(bits);
     }
 
     public int getLevel() {
-        return level;
+        return PackedCard.level(bits);
     }
 
     public int getMaxHp() {
-        return maxHp;
+        return PackedCard.maxHp(bits);
     }
 
     public int getCurHp() {
-        return curHp;
-    }
-    public void setCurHp(int curHp) {
-        this.curHp = curHp;
-    }
-    public void removeCurHp(int damage) {
-        this.curHp = ((curHp - damage) > 0) ? curHp - damage : 0;
-    }
-    public void addCurHp(int healing) {
-        this.curHp = ((curHp + healing) <= maxHp) ? curHp + healing : maxHp;
+        return PackedCard.curHp(bits);
     }
 
     public boolean isHasTotem() {
-        return hasTotem;
+        return PackedCard.hasTotem(bits);
     }
     public int getTaunterCharges() {
-        return taunterCharges;
+        return PackedCard.taunterCharges(bits);
     }
-    public void giveTotem() {
-        this.hasTotem = true;
-    }
-    public void takeTotem() {
-        this.hasTotem = false;
-    }
-    
-    
+
+    // Cards are the same card when their ids match, whatever damage or totem either view has seen
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || this.getClass() != o.getClass()) return false;
         Card otherCard = (Card) o;
-        return (this.level == otherCard.level) && (this.maxHp == otherCard.maxHp) && Objects.equals(this.style, otherCard.style);
+        return PackedCard.id(this.bits) == PackedCard.id(otherCard.bits);
+    }
+
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(PackedCard.id(this.bits));
     }
 }
@@ -0,0 +1,7 @@
+package com.inoka.inoka_app.model;
+
+/*
+ * Inbound /app/clashAction message
+ * targetId is "null" when the player skips their turn
+ */
+public record ClashActionCommand(String userId, String targetId) {}
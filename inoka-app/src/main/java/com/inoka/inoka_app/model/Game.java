@@ -1,67 +1,109 @@
 package com.inoka.inoka_app.model;
 
-import java.lang.reflect.Array;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
-import java.util.Random;
-import java.util.List;
 import java.util.UUID;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 public class Game {
     private String id;
     // Player UUID --> Player object
     private Map<String, Player> players;
     private String passcode;
     private GameState state;
-    // Player UUID --> Player Card
-    private Map<String, Card> cardsInPlay;
     private int addSubDice;
     private int currentInitiativeValue;
-    // Initiative Value --> Player UUID
-    private Map<Integer, String> initiativeMap;
+    // Turn order by initiative value
+    private final InitiativeOrder initiativeOrder;
     private Action lastAction;
+    // Incremented on every broadcast-worthy change
+    // Only written by the game's mailbox, read by snapshot readers on other threads
+    private volatile long version;
+    // Source of every roll in this game, never sent to clients
+    private final GameRandom random;
+    // Id of the next card dealt, card ids only need to be unique within their game
+    private int nextCardId;
     
     public Game() {
-        this.id = UUID.randomUUID().toString();
-        this.players = new HashMap<>();
-        this.passcode = "";
-        this.state = GameState.WAITING_FOR_PLAYERS;
-        this.cardsInPlay = new HashMap<>();
-        this.addSubDice = 6;
-        this.currentInitiativeValue = -1;
-        this.initiativeMap = new HashMap<>();
-        this.lastAction = new Action();
+        this("", GameRandom.newSeed());
     }
 
     public Game(String passcode) {
-        this.id = UUID.randomUUID().toString();
+        this(passcode, GameRandom.newSeed());
+    }
+
+    // Games created with the same seed make the same rolls for the same sequence of commands
+    public Game(String passcode, long seed) {
+        this(UUID.randomUUID().toString(), passcode, seed);
+    }
+
+    // Rebuilds a game under its original UUID, e.g. when replaying the game journal
+    public Game(String id, String passcode, long seed) {
+        this(id, passcode, new GameRandom(seed));
+    }
+
+    // Used by GameCodec to restore a game mid-sequence, with its random source where it left off
+    Game(String id, String passcode, GameRandom random) {
+        this.id = id;
         this.players = new HashMap<>();
         this.passcode = passcode;
         this.state = GameState.WAITING_FOR_PLAYERS;
-        this.cardsInPlay = new HashMap<>();
         this.addSubDice = 6;
         this.currentInitiativeValue = -1;
-        this.initiativeMap = new HashMap<>();
+        this.initiativeOrder = new InitiativeOrder();
         this.lastAction = new Action();
+        this.version = 0;
+        this.random = random;
+        this.nextCardId = 1;
     }
 
     public String getId() {
         return id;
     }
 
+    @JsonIgnore
+    public GameRandom getRandom() {
+        return random;
+    }
+    @JsonIgnore
+    public long getSeed() {
+        return random.getSeed();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+    public long bumpVersion() {
+        return ++this.version;
+    }
+    void setVersion(long version) {
+        this.version = version;
+    }
+
     public void addPlayer(Player player) {
         if (!players.keySet().contains(player.getId())) {
-            // Roll new initiative value
-            player.rollInitiative();
+            // Roll new initiative value & deal the player's deck from the game's random source
+            player.rollInitiative(this.random);
+            player.dealDeck(this.random, this.reserveCardIds(Player.DECK_SIZE));
             // Update player gameId
             player.setGameId(this.id);
             this.players.put(player.getId(), player);
         }
     }
+    /*
+     * Given a player's UUID,
+     * remove them from the game, including their card in play and initiative value
+     * Returns the removed player, or null if they were not in the game
+     */
+    public Player removePlayer(String playerId) {
+        Player player = this.players.remove(playerId);
+        if (player != null) {
+            player.setCardInPlay(PackedCard.EMPTY);
+            this.removePlayerFromInitiative(player);
+        }
+        return player;
+    }
     public Map<String, Player> getPlayers() {
         return players;
     }
@@ -86,92 +128,155 @@ public class Game {
         this.state = state;
     }
 
+    // Returns the first of count consecutive card ids, none of which this game has dealt before
+    private int reserveCardIds(int count) {
+        int first = this.nextCardId;
+        this.nextCardId += count;
+        return first;
+    }
+    int getNextCardId() {
+        return nextCardId;
+    }
+    void setNextCardId(int nextCardId) {
+        this.nextCardId = nextCardId;
+    }
+
+    // Player UUID --> Player Card, a view built for clients
     public Map<String, Card> getCardsInPlay() {
-        return cardsInPlay;
+        Map<String, Card> cards = new HashMap<>();
+        for (Player player : this.players.values()) {
+            if (player.cardInPlay() != PackedCard.EMPTY) cards.put(player.getId(), new Card(player.cardInPlay()));
+        }
+        return cards;
+    }
+    public int numCardsInPlay() {
+        int count = 0;
+        for (Player player : this.players.values()) {
+            if (player.cardInPlay() != PackedCard.EMPTY) count++;
+        }
+        return count;
+    }
+    public boolean hasCardInPlay(String playerId) {
+        Player player = this.players.get(playerId);
+        return player != null && player.cardInPlay() != PackedCard.EMPTY;
     }
+    // Puts a card in play for a player seated in the game
     public void addCardInPlay(String playerId, Card card) {
-        this.cardsInPlay.put(playerId, card);
+        Player player = this.players.get(playerId);
+        if (player != null) player.setCardInPlay(card.bits());
+    }
+    /*
+     * Given a player's UUID and the id of a card in their deck,
+     * move the card from their deck into play
+     * Returns false if the player is not in the game or the deck holds no such card
+     */
+    public boolean playCardFromDeck(String playerId, String cardId) {
+        Player player = this.players.get(playerId);
+        int id = PackedCard.parseId(cardId);
+        if (player == null || id == -1) return false;
+        long card = player.takeCardFromDeck(id);
+        if (card == PackedCard.EMPTY) return false;
+        player.setCardInPlay(card);
+        return true;
     }
     public Card getPlayerCardInPlay(String playerId) {
-        return this.cardsInPlay.get(playerId);
+        Player player = this.players.get(playerId);
+        return (player != null && player.cardInPlay() != PackedCard.EMPTY) ? new Card(player.cardInPlay()) : null;
     }
     public Card removeCardInPlay(String playerId) {
-        return this.cardsInPlay.remove(playerId);
+        Card card = this.getPlayerCardInPlay(playerId);
+        if (card != null) this.players.get(playerId).setCardInPlay(PackedCard.EMPTY);
+        return card;
     }
     public void removeAllCardsFromPlay() {
-        this.cardsInPlay.clear();
+        for (Player player : this.players.values()) player.setCardInPlay(PackedCard.EMPTY);
     }
     // Removes totem from any cards in play
     public void resetCardsTotem() {
-        for (String playerUUID : this.cardsInPlay.keySet()) {
-            Card card = this.cardsInPlay.get(playerUUID);
-            if (card.isHasTotem()) {
-                card.takeTotem();
-                this.cardsInPlay.put(playerUUID, card);
+        for (Player player : this.players.values()) {
+            long card = player.cardInPlay();
+            if (card != PackedCard.EMPTY && PackedCard.hasTotem(card)) {
+                player.setCardInPlay(PackedCard.withTotem(card, false));
             }
         }
     }
     // Gives totem to player's card (heals card as well)
     public void playerGiveTotem(String playerId) {
-        Card card = this.cardsInPlay.get(playerId);
-        card.giveTotem();
+        Player player = this.players.get(playerId);
+        long card = PackedCard.withTotem(player.cardInPlay(), true);
         // Heal card
-        Random rand = new Random();
-        card.addCurHp(rand.nextInt(12) + 1);
-        this.cardsInPlay.put(playerId, card);
+        card = PackedCard.withCurHp(card, PackedCard.curHp(card) + this.random.nextInt(12) + 1);
+        player.setCardInPlay(card);
+    }
+    /*
+     * Given the UUID of a player who knocked out a card,
+     * Return true if this wins them the clash (their card is an Attacker already holding the totem)
+     * otherwise move the totem to their card, healing it, and return false
+     */
+    public boolean pickUpKnockout(String playerId) {
+        long card = this.players.get(playerId).cardInPlay();
+        if (card == PackedCard.EMPTY) return false;
+        if (PackedCard.hasTotem(card) && PackedCard.style(card) == CardStyle.ATTACKER) return true;
+        this.resetCardsTotem(); // Only one player can have totem
+        this.playerGiveTotem(playerId);
+        return false;
     }
 
     public void setAddSubDice(int diceSize) {
         this.addSubDice = diceSize;
     }
+    int getAddSubDice() {
+        return addSubDice;
+    }
 
+    // Initiative Value --> Player UUID, a copy built for clients & checkpoints
     public Map<Integer, String> getInitiativeMap() {
-        return initiativeMap;
+        return initiativeOrder.toMap();
+    }
+    /*
+     * Given a player's UUID,
+     * roll their initiative until it is a value no other player holds, and add it to the order
+     * Tricksters in play add their level to the roll
+     * Returns the value rolled, or -1 if the player is not in the game
+     */
+    public int rollPlayerInitiative(String playerId) {
+        Player player = this.players.get(playerId);
+        if (player == null) return -1;
+        long card = player.cardInPlay();
+        do {
+            player.rollInitiative(this.random);
+            if (card != PackedCard.EMPTY && PackedCard.style(card) == CardStyle.TRICKSTER) {
+                player.addToInitiative(PackedCard.level(card));
+            }
+        } while (!this.addPlayerInitiativeToMap(player));
+        return player.getInitiative();
+    }
+    public boolean hasInitiative(String playerId) {
+        return initiativeOrder.contains(playerId);
+    }
+    public int numInitiatives() {
+        return initiativeOrder.size();
     }
     /*
      * Given a player,
-     * If their initiative value is not in the map, add it and return true
+     * If no player holds their initiative value, add it to the order, replacing their previous value, and return true
      * else return false
      */ 
     public boolean addPlayerInitiativeToMap(Player player) {
-        int playerInitiative = player.getInitiative();
-        String playerId = player.getId();
-        if (!this.initiativeMap.containsKey(playerInitiative)) {
-            if (this.initiativeMap.values().contains(playerId)) {
-                // Remove player's previous initiative value.
-                Iterator<Map.Entry<Integer, String>> iterator = this.initiativeMap.entrySet().iterator();
-                while (iterator.hasNext()) {
-                    Map.Entry<Integer, String> entry = iterator.next();
-                    if (entry.getValue().equals(playerId)) {
-                        iterator.remove();
-                    }
-                }
-            }
-            this.initiativeMap.put(playerInitiative, playerId);
-            return true;
-        }
-        return false;
+        return this.initiativeOrder.add(player.getId(), player.getInitiative());
+    }
+    // Used by GameCodec to restore the order as it was
+    boolean putInitiative(int initiative, String playerId) {
+        return this.initiativeOrder.add(playerId, initiative);
     }
 
     /*
      * Given a player,
-     * remove their initiative value from the map
+     * remove their initiative value from the order
      * and return its value, or -1 if player not present
      */
     public int removePlayerFromInitiative(Player player) {
-        String playerId = player.getId();
-        int result = -1;
-
-        Iterator<Map.Entry<Integer, String>> iterator = this.initiativeMap.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<Integer, String> entry = iterator.next();
-            if (entry.getValue().equals(playerId)) {
-                result = entry.getKey();
-                iterator.remove();
-            }
-        }
-
-        return result;
+        return this.initiativeOrder.remove(player.getId());
     }
 
     public int getCurrentInitiativeValue() {
@@ -180,33 +285,26 @@ public class Game {
     public void resetInitiativeValue() {
         this.currentInitiativeValue = -1;
     }
+    void setCurrentInitiativeValue(int currentInitiativeValue) {
+        this.currentInitiativeValue = currentInitiativeValue;
+    }
 
-    // Sets and returns the initiative value of the next player in initiative order
+    /*
+     * Sets and returns the initiative value of the next player in initiative order, highest first
+     * If the current player has left the order, the turn passes to whoever followed them
+     * Returns -1 if no player holds an initiative value
+     */
     public int determineNextInitiativeValue() {
-        List<Integer> initiatives = Arrays.asList(this.initiativeMap.keySet().toArray(new Integer[0]));
-        initiatives.sort(Collections.reverseOrder());
-        int previousInitVal = this.currentInitiativeValue;
-        // Call on empty initiative map
-        if (initiatives.isEmpty()) return -1;
-        // First call after constructing Game object
-        if (previousInitVal == -1) {
-            this.currentInitiativeValue = initiatives.get(0);
-            return this.currentInitiativeValue;
-        }
-        // Previous initiative value is no longer in initiatives list
-        if (!initiatives.contains(previousInitVal)) {
-            
-        }
-        // Otherwise:
-        int nextIndex = initiatives.indexOf(previousInitVal) + 1;
-        if (nextIndex == initiatives.size()) {
-            this.currentInitiativeValue = initiatives.get(0);
-            return this.currentInitiativeValue;
-        }
-        this.currentInitiativeValue = initiatives.get(nextIndex);
+        this.currentInitiativeValue = this.initiativeOrder.next(this.currentInitiativeValue);
         return this.currentInitiativeValue;
     }
 
+    // UUID of the player whose turn it is, null before the first turn of a clash
+    @JsonIgnore
+    public String getCurrentPlayerId() {
+        return initiativeOrder.playerAt(this.currentInitiativeValue);
+    }
+
     public Action getLastAction() {
         return lastAction;
     }
@@ -215,47 +313,52 @@ public class Game {
     }
     /*
      * Given the UUID of player dealing damage & UUID of player receiving damage,
-     * Obtains transient Card data in cardsInPlay
+     * Obtains both players' packed cards in play
      * then calculates and deals damage to receiving card,
-     * storing the resulting transient Card data
+     * storing the damaged card back on the receiving player
+     * Returns -1 if either player is not in the game or has no card in play
      */
     public int dealDamage(String dealingPlayerId, String receivingPlayerId) {
-        Card dealingCard = this.cardsInPlay.get(dealingPlayerId);
-        Card receivingCard = this.cardsInPlay.get(receivingPlayerId);
+        Player dealingPlayer = this.players.get(dealingPlayerId);
+        Player receivingPlayer = this.players.get(receivingPlayerId);
+        if (dealingPlayer == null || receivingPlayer == null) return -1;
+        long dealingCard = dealingPlayer.cardInPlay();
+        long receivingCard = receivingPlayer.cardInPlay();
+        // EMPTY would decode as a level 0 Attacker
+        if (dealingCard == PackedCard.EMPTY || receivingCard == PackedCard.EMPTY) return -1;
+        CardStyle dealingStyle = PackedCard.style(dealingCard);
+        CardStyle receivingStyle = PackedCard.style(receivingCard);
 
         // Determine CardStyle matchup
         boolean isPositive = false;
         boolean isNegative = false;
         // Attacker -> Trickster -> Defender -> Attacker
-        switch(dealingCard.getStyle()) {
+        switch(dealingStyle) {
             case CardStyle.ATTACKER:
-                if (receivingCard.getStyle() == CardStyle.TRICKSTER) isPositive = true;
-                if (receivingCard.getStyle() == CardStyle.DEFENDER) isNegative = true;
+                if (receivingStyle == CardStyle.TRICKSTER) isPositive = true;
+                if (receivingStyle == CardStyle.DEFENDER) isNegative = true;
                 break;
             case CardStyle.DEFENDER:
-                if (receivingCard.getStyle() == CardStyle.ATTACKER) isPositive = true;
-                if (receivingCard.getStyle() == CardStyle.TRICKSTER) isNegative = true;
+                if (receivingStyle == CardStyle.ATTACKER) isPositive = true;
+                if (receivingStyle == CardStyle.TRICKSTER) isNegative = true;
                 break;
             case CardStyle.TRICKSTER:
-                if (receivingCard.getStyle() == CardStyle.DEFENDER) isPositive = true;
-                if (receivingCard.getStyle() == CardStyle.ATTACKER) isNegative = true;
+                if (receivingStyle == CardStyle.DEFENDER) isPositive = true;
+                if (receivingStyle == CardStyle.ATTACKER) isNegative = true;
                 break;
         }
 
-        Random rand = new Random();
-
         int damage = 0;
-        damage += rand.nextInt(8) + 1;
+        damage += this.random.nextInt(8) + 1;
         // Attackers deal additional damage equal to their mark level
-        if (dealingCard.getStyle() == CardStyle.ATTACKER) damage += dealingCard.getLevel();
+        if (dealingStyle == CardStyle.ATTACKER) damage += PackedCard.level(dealingCard);
         // Matchup roll: +/- damage based on matchup
-        if (isPositive) damage += rand.nextInt(this.addSubDice) + 1;
-        if (isNegative) damage -= rand.nextInt(this.addSubDice) + 1;
+        if (isPositive) damage += this.random.nextInt(this.addSubDice) + 1;
+        if (isNegative) damage -= this.random.nextInt(this.addSubDice) + 1;
         // Cannot deal less than 0 damage
         if (damage < 0) damage = 0;
 
-        receivingCard.removeCurHp(damage);
-        this.cardsInPlay.put(receivingPlayerId, receivingCard);
+        receivingPlayer.setCardInPlay(PackedCard.withCurHp(receivingCard, PackedCard.curHp(receivingCard) - damage));
         return damage;
     }
 }
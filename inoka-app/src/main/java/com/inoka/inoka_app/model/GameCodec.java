@@ -0,0 +1,100 @@
+package com.inoka.inoka_app.model;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Map;
+
+/*
+ * Compact binary form of a Game, including everything JSON leaves out:
+ * the random source's position, and each player's transient deck, stones & initiative.
+ * A decoded game continues exactly where the encoded one stood, so journal records written after it replay on top.
+ * Like the rest of the Game, encode only from within the game's mailbox.
+ */
+public final class GameCodec {
+    // Written first, bump when the layout changes
+    public static final int FORMAT_VERSION = 3;
+    private static final GameState[] STATES = GameState.values();
+
+    private GameCodec() {
+    }
+
+    public static void write(Game game, DataOutput out) throws IOException {
+        out.writeUTF(game.getId());
+        out.writeUTF(game.getPasscode());
+        out.writeByte(game.getState().ordinal());
+        out.writeLong(game.getRandom().getSeed());
+        out.writeLong(game.getRandom().getState());
+        out.writeLong(game.getVersion());
+        out.writeInt(game.getAddSubDice());
+        out.writeInt(game.getCurrentInitiativeValue());
+        out.writeInt(game.getNextCardId());
+        Action lastAction = game.getLastAction();
+        writeNullable(out, lastAction.getDealingPlayerId());
+        writeNullable(out, lastAction.getReceivingPlayerId());
+        out.writeInt(lastAction.getDamageDealt());
+
+        out.writeShort(game.numPlayers());
+        for (Player player : game.getPlayers().values()) {
+            out.writeUTF(player.getId());
+            writeNullable(out, player.getName());
+            out.writeBoolean(player.isReady());
+            out.writeByte(player.getSacredStones());
+            out.writeInt(player.getInitiative());
+            // Cards are written packed (see PackedCard), every slot including played ones
+            out.writeInt(player.firstCardId());
+            for (int i = 0; i < Player.DECK_SIZE; i++) out.writeLong(player.deckCard(i));
+            out.writeLong(player.cardInPlay());
+        }
+
+        out.writeShort(game.getInitiativeMap().size());
+        for (Map.Entry<Integer, String> entry : game.getInitiativeMap().entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeUTF(entry.getValue());
+        }
+    }
+
+    public static Game read(DataInput in) throws IOException {
+        String id = in.readUTF();
+        String passcode = in.readUTF();
+        GameState state = STATES[in.readUnsignedByte()];
+        long seed = in.readLong();
+        Game game = new Game(id, passcode, new GameRandom(seed, in.readLong()));
+        game.setState(state);
+        game.setVersion(in.readLong());
+        game.setAddSubDice(in.readInt());
+        game.setCurrentInitiativeValue(in.readInt());
+        game.setNextCardId(in.readInt());
+        game.setLastAction(readNullable(in), readNullable(in), in.readInt());
+
+        int players = in.readUnsignedShort();
+        for (int i = 0; i < players; i++) {
+            Player player = new Player(in.readUTF(), readNullable(in));
+            player.setGameId(id);
+            player.setReady(in.readBoolean());
+            player.setSacredStones(in.readUnsignedByte());
+            player.setInitiative(in.readInt());
+            player.setFirstCardId(in.readInt());
+            for (int j = 0; j < Player.DECK_SIZE; j++) {
+                long card = in.readLong();
+                if (card != PackedCard.EMPTY) player.addCardToDeck(card);
+            }
+            player.setCardInPlay(in.readLong());
+            // Added directly, addPlayer() would deal a new deck
+            game.getPlayers().put(player.getId(), player);
+        }
+
+        int initiatives = in.readUnsignedShort();
+        for (int i = 0; i < initiatives; i++) game.putInitiative(in.readInt(), in.readUTF());
+        return game;
+    }
+
+    private static void writeNullable(DataOutput out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,7 @@
+package com.inoka.inoka_app.model;
+
+/*
+ * Inbound /app/clashStart, /app/clashNew & /app/clashProcessed message
+ * Carries the game's UUID, so a sharded node can route it without looking up the sender
+ */
+public record GameCommand(String gameId) {}
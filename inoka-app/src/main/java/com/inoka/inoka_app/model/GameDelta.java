@@ -0,0 +1,47 @@
+package com.inoka.inoka_app.model;
+
+/*
+ * Game update sent to /topic/game/{id} when delta broadcasts are enabled.
+ * changes is a JSON Merge Patch (RFC 7386) against the game at baseVersion,
+ * or the whole game when full is true.
+ * Clients whose last applied version != baseVersion should request a full snapshot.
+ */
+public class GameDelta {
+    private final String gameId;
+    private final long version;
+    private final long baseVersion;
+    private final boolean full;
+    private final Object changes;
+
+    public GameDelta(String gameId, long version, long baseVersion, boolean full, Object changes) {
+        this.gameId = gameId;
+        this.version = version;
+        this.baseVersion = baseVersion;
+        this.full = full;
+        this.changes = changes;
+    }
+
+    public static GameDelta snapshot(String gameId, long version, Object game) {
+        return new GameDelta(gameId, version, -1, true, game);
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public Object getChanges() {
+        return changes;
+    }
+}
@@ -0,0 +1,48 @@
+package com.inoka.inoka_app.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/*
+ * Random source owned by one Game, seeded when the game is created.
+ * Every roll made by the game's rules draws from it, so a game replays exactly
+ * from its seed given the same sequence of commands.
+ * SplitMix64: a single long of state and no allocation per draw.
+ * Not thread-safe, like the rest of the Game it is only used from the game's mailbox.
+ */
+public final class GameRandom implements RandomGenerator {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final long seed;
+    private long state;
+
+    public GameRandom(long seed) {
+        this(seed, seed);
+    }
+
+    // Resumes a source that has already made draws, see getState()
+    GameRandom(long seed, long state) {
+        this.seed = seed;
+        this.state = state;
+    }
+
+    // Seed for a new game, drawn from a per-thread source so game creation never contends
+    public static long newSeed() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+    long getState() {
+        return state;
+    }
+
+    @Override
+    public long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,104 @@
+package com.inoka.inoka_app.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+ * Turn order of a clash: each player's initiative value, highest acts first, wrapping around after the lowest.
+ * Values are kept sorted ascending in a primitive array treated as a ring, with each player's value indexed by UUID.
+ * Finding the next turn is a binary search with no allocation, adding or removing a player
+ * shifts at most one game's worth of slots.
+ * Not thread-safe, only touched by the game's mailbox like the rest of Game.
+ */
+final class InitiativeOrder {
+    // A full lobby, grown if ever exceeded
+    private static final int INITIAL_CAPACITY = 6;
+
+    // Initiative values ascending, slots [0, size) in use
+    private int[] values = new int[INITIAL_CAPACITY];
+    // UUID of the player holding the value in the same slot
+    private String[] playerIds = new String[INITIAL_CAPACITY];
+    private int size;
+    // Player UUID --> Initiative value they hold
+    private final Map<String, Integer> valueByPlayer = new HashMap<>();
+
+    int size() {
+        return size;
+    }
+
+    /*
+     * Given a player's UUID and their rolled value,
+     * If no player holds the value, replace the player's previous value with it and return true
+     * else return false
+     */
+    boolean add(String playerId, int value) {
+        int slot = Arrays.binarySearch(values, 0, size, value);
+        if (slot >= 0) return false;
+        if (this.remove(playerId) != -1) {
+            // Removing a lower value shifted the insertion point down by one
+            slot = Arrays.binarySearch(values, 0, size, value);
+        }
+        int insertAt = -slot - 1;
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            playerIds = Arrays.copyOf(playerIds, size * 2);
+        }
+        System.arraycopy(values, insertAt, values, insertAt + 1, size - insertAt);
+        System.arraycopy(playerIds, insertAt, playerIds, insertAt + 1, size - insertAt);
+        values[insertAt] = value;
+        playerIds[insertAt] = playerId;
+        size++;
+        valueByPlayer.put(playerId, value);
+        return true;
+    }
+
+    /*
+     * Given a player's UUID,
+     * remove their value from the order and return it, or -1 if they hold none
+     */
+    int remove(String playerId) {
+        Integer value = valueByPlayer.remove(playerId);
+        if (value == null) return -1;
+        int slot = Arrays.binarySearch(values, 0, size, value);
+        System.arraycopy(values, slot + 1, values, slot, size - slot - 1);
+        System.arraycopy(playerIds, slot + 1, playerIds, slot, size - slot - 1);
+        size--;
+        playerIds[size] = null;
+        return value;
+    }
+
+    /*
+     * Given the value whose turn just ended,
+     * Return the value acting next: the highest value below it, wrapping around to the highest overall
+     * The given value need not still be in the order, e.g. its player forfeited on their own turn,
+     * the turn then passes to whoever followed them
+     * -1 starts from the top, returns -1 if the order is empty
+     */
+    int next(int current) {
+        if (size == 0) return -1;
+        if (current == -1) return values[size - 1];
+        int slot = Arrays.binarySearch(values, 0, size, current);
+        // Found: the slot below it, otherwise the slot below the insertion point
+        int below = (slot >= 0) ? slot - 1 : -slot - 2;
+        return (below >= 0) ? values[below] : values[size - 1];
+    }
+
+    boolean contains(String playerId) {
+        return valueByPlayer.containsKey(playerId);
+    }
+
+    // UUID of the player holding the given value, null if none does
+    String playerAt(int value) {
+        int slot = Arrays.binarySearch(values, 0, size, value);
+        return (slot >= 0) ? playerIds[slot] : null;
+    }
+
+    // Initiative value --> Player UUID, ascending by value, built for serialization
+    Map<Integer, String> toMap() {
+        Map<Integer, String> map = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) map.put(values[i], playerIds[i]);
+        return map;
+    }
+}
@@ -0,0 +1,114 @@
+package com.inoka.inoka_app.model;
+
+import java.util.random.RandomGenerator;
+
+/*
+ * A card packed into one long, so decks & cards in play are primitive arrays and fields rather than objects.
+ * Card is the view rendered to clients, built from the packed value only when serialized.
+ *
+ * Bit layout, low to high:
+ *   0-1   style ordinal
+ *   2-3   level (1-3)
+ *   4-11  max hit points (at most 57)
+ *   12-19 current hit points
+ *   20    has totem
+ *   21-22 taunter charges (0-3)
+ *   32-63 id, unique within its game
+ * 0 is never a card (ids start at 1), and marks an empty slot.
+ */
+final class PackedCard {
+    static final long EMPTY = 0L;
+
+    private static final int STYLE_SHIFT = 0;
+    private static final int LEVEL_SHIFT = 2;
+    private static final int MAX_HP_SHIFT = 4;
+    private static final int CUR_HP_SHIFT = 12;
+    private static final int TOTEM_SHIFT = 20;
+    private static final int CHARGES_SHIFT = 21;
+    private static final int ID_SHIFT = 32;
+    private static final long TWO_BITS = 0x3L;
+    private static final long BYTE = 0xFFL;
+    private static final CardStyle[] STYLES = CardStyle.values();
+
+    private PackedCard() {}
+
+    static long pack(int id, CardStyle style, int level, int maxHp, int curHp, boolean hasTotem, int taunterCharges) {
+        if (id < 1 || level < 1 || level > 3 || maxHp > BYTE || curHp < 0 || curHp > maxHp || taunterCharges < 0 || taunterCharges > 3) {
+            throw new IllegalArgumentException("Card out of range: id " + id + ", level " + level + ", hp " + curHp + "/" + maxHp);
+        }
+        return ((long) id << ID_SHIFT)
+            | ((long) style.ordinal() << STYLE_SHIFT)
+            | ((long) level << LEVEL_SHIFT)
+            | ((long) maxHp << MAX_HP_SHIFT)
+            | ((long) curHp << CUR_HP_SHIFT)
+            | ((hasTotem ? 1L : 0L) << TOTEM_SHIFT)
+            | ((long) taunterCharges << CHARGES_SHIFT);
+    }
+
+    // A new card at full hit points, rolled from the given source
+    static long roll(int id, CardStyle style, int level, RandomGenerator random) {
+        int hitPoints = 0;
+        for (int i = 0; i < level; i++) {
+            hitPoints += random.nextInt(12) + 1 + level;
+        }
+        if (style == CardStyle.DEFENDER) {
+            hitPoints += (random.nextInt(4) + 1) * level;
+        }
+        return pack(id, style, level, hitPoints, hitPoints, false, 0);
+    }
+
+    static int id(long card) {
+        return (int) (card >>> ID_SHIFT);
+    }
+    static CardStyle style(long card) {
+        return STYLES[(int) ((card >>> STYLE_SHIFT) & TWO_BITS)];
+    }
+    static int level(long card) {
+        return (int) ((card >>> LEVEL_SHIFT) & TWO_BITS);
+    }
+    static int maxHp(long card) {
+        return (int) ((card >>> MAX_HP_SHIFT) & BYTE);
+    }
+    static int curHp(long card) {
+        return (int) ((card >>> CUR_HP_SHIFT) & BYTE);
+    }
+    static boolean hasTotem(long card) {
+        return ((card >>> TOTEM_SHIFT) & 1L) != 0;
+    }
+    static int taunterCharges(long card) {
+        return (int) ((card >>> CHARGES_SHIFT) & TWO_BITS);
+    }
+
+    // Current hit points clamped to [0, max]
+    static long withCurHp(long card, int curHp) {
+        int clamped = Math.max(0, Math.min(curHp, maxHp(card)));
+        return (card & ~(BYTE << CUR_HP_SHIFT)) | ((long) clamped << CUR_HP_SHIFT);
+    }
+    static long withTotem(long card, boolean hasTotem) {
+        return hasTotem ? card | (1L << TOTEM_SHIFT) : card & ~(1L << TOTEM_SHIFT);
+    }
+    static long withTaunterCharges(long card, int taunterCharges) {
+        int clamped = Math.max(0, Math.min(taunterCharges, 3));
+        return (card & ~(TWO_BITS << CHARGES_SHIFT)) | ((long) clamped << CHARGES_SHIFT);
+    }
+
+    // Charges granted by a d12 roll: 1 on 1-4, 2 on 5-8, 3 on 9+
+    static long withTaunterChargesRolled(long card, int roll) {
+        return withTaunterCharges(card, (roll <= 4) ? 1 : (roll <= 8) ? 2 : 3);
+    }
+
+    /*
+     * Given a card id as sent by a client,
+     * Return it as a number, or -1 if it cannot be one of this game's ids
+     */
+    static int parseId(String cardId) {
+        if (cardId == null || cardId.isEmpty() || cardId.length() > 10) return -1;
+        long id = 0;
+        for (int i = 0; i < cardId.length(); i++) {
+            char c = cardId.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            id = id * 10 + (c - '0');
+        }
+        return (id > 0 && id <= Integer.MAX_VALUE) ? (int) id : -1;
+    }
+}
@@ -0,0 +1,7 @@
+package com.inoka.inoka_app.model;
+
+/*
+ * Inbound /app/playCard message
+ * The card is referenced by id and resolved from the player's deck, never rebuilt from the payload
+ */
+public record PlayCardCommand(String playerId, String cardId) {}
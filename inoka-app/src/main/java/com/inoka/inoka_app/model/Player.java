@@ -3,8 +3,10 @@ package com.inoka.inoka_app.model;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
 import java.util.UUID;
+import java.util.random.RandomGenerator;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -16,6 +18,10 @@ import jakarta.persistence.Transient;
 @Entity
 @Table(name="players")
 public class Player implements Serializable {
+    static final int DECK_SIZE = 9;
+    // Ids of server-side bot players start with this, real players have plain UUIDs
+    public static final String BOT_ID_PREFIX = "bot-";
+
     @Id
     @Column(name = "play_id", nullable = true, updatable = false, length = 128)
     private String id;
@@ -26,8 +32,18 @@ public class Player implements Serializable {
 
     @Transient
     private boolean isReady;
+    /*
+     * Packed cards indexed by id: a deck is dealt DECK_SIZE consecutive ids,
+     * so a card sits in slot (id - firstCardId) and played cards leave their slot EMPTY
+     */
+    @Transient
+    private long[] deck;
+    @Transient
+    private int firstCardId;
+    @Transient
+    private int deckSize;
     @Transient
-    private List<Card> deck;
+    private long cardInPlay;
     @Transient
     private int sacredStones;
     @Transient
@@ -45,13 +61,22 @@ public class Player implements Serializable {
         this.gameId = "Not in game";
         initializeTransientFields();
     }
+    public Player(String id, String name) {
+        this.id = id;
+        this.name = name;
+        this.gameId = "Not in game";
+        initializeTransientFields();
+    }
 
+    // Deck & initiative are rolled by the game the player joins
     private void initializeTransientFields(){
         this.isReady = false;
-        this.deck = new ArrayList<>(9); // Deck size of 9
+        this.deck = new long[DECK_SIZE];
+        this.firstCardId = 0;
+        this.deckSize = 0;
+        this.cardInPlay = PackedCard.EMPTY;
         this.sacredStones = 0;
-        this.initiative = rollInitiative();
-        generateRandomDeck();
+        this.initiative = 0;
     }
 
     @PostLoad
@@ -62,6 +87,12 @@ public class Player implements Serializable {
     public String getId() {
         return id;
     }
+    // Derived from the id so bots stay bots through the journal & checkpoints
+    // Kept out of the game JSON, clients see bots as ordinary players
+    @JsonIgnore
+    public boolean isBot() {
+        return id != null && id.startsWith(BOT_ID_PREFIX);
+    }
 
     public String getName() {
         return name;
@@ -77,32 +108,93 @@ public class Player implements Serializable {
         this.isReady = isReady;
     }
 
+    // Deck slot of the given card id, -1 if the id was not dealt to this deck
+    private int slotOf(int cardId) {
+        int slot = cardId - this.firstCardId;
+        return (slot >= 0 && slot < DECK_SIZE) ? slot : -1;
+    }
+    /*
+     * Returns a packed card to its slot in the player's deck
+     * Returns false if the card was not dealt to this deck or is already in it
+     */
+    boolean addCardToDeck(long card) {
+        int slot = this.slotOf(PackedCard.id(card));
+        if (slot == -1 || this.deck[slot] != PackedCard.EMPTY) return false;
+        this.deck[slot] = card;
+        this.deckSize++;
+        return true;
+    }
     public boolean addCardToDeck(Card card) {
-        if (this.deck.size() < 9) {
-            this.deck.add(card);
-            return true;
-        } else {
-            return false; // Deck is full
-        }
+        return this.addCardToDeck(card.bits());
     }
     public void removeCardFromDeck(Card card) {
-        if (this.deck.contains(card)) {
-            this.deck.remove(card);
+        this.takeCardFromDeck(PackedCard.id(card.bits()));
+    }
+    /*
+     * Given the id of a card in the player's deck,
+     * remove it from the deck and return it packed
+     * Returns PackedCard.EMPTY if the deck holds no card with that id
+     */
+    long takeCardFromDeck(int cardId) {
+        int slot = this.slotOf(cardId);
+        if (slot == -1) return PackedCard.EMPTY;
+        long card = this.deck[slot];
+        if (card != PackedCard.EMPTY) {
+            this.deck[slot] = PackedCard.EMPTY;
+            this.deckSize--;
         }
+        return card;
+    }
+    /*
+     * Given the id of a card in the player's deck,
+     * remove it from the deck and return it
+     * Returns null if the deck holds no card with that id
+     */
+    public Card takeCardFromDeck(String cardId) {
+        int id = PackedCard.parseId(cardId);
+        long card = (id != -1) ? this.takeCardFromDeck(id) : PackedCard.EMPTY;
+        return (card != PackedCard.EMPTY) ? new Card(card) : null;
     }
 
-    private void generateRandomDeck() {
-        Random rand = new Random();
+    // Replaces the player's deck with 9 random cards, numbered from firstCardId up
+    public void dealDeck(RandomGenerator random, int firstCardId) {
+        this.firstCardId = firstCardId;
         CardStyle[] styles = CardStyle.values();
-        for (int i = 0; i < 9; i++) {
-            CardStyle style = styles[rand.nextInt(styles.length)];
-            int level = rand.nextInt(3) + 1; // Levels 1, 2, or 3
-            Card card = new Card(style, level);
-            addCardToDeck(card);
+        for (int i = 0; i < DECK_SIZE; i++) {
+            CardStyle style = styles[random.nextInt(styles.length)];
+            int level = random.nextInt(3) + 1; // Levels 1, 2, or 3
+            this.deck[i] = PackedCard.roll(firstCardId + i, style, level, random);
         }
+        this.deckSize = DECK_SIZE;
     }
+    // A view of the deck in dealt order, built on every call
     public List<Card> getDeck() {
-        return deck;
+        List<Card> cards = new ArrayList<>(this.deckSize);
+        for (long card : this.deck) {
+            if (card != PackedCard.EMPTY) cards.add(new Card(card));
+        }
+        return cards;
+    }
+    public int deckSize() {
+        return deckSize;
+    }
+    int firstCardId() {
+        return firstCardId;
+    }
+    void setFirstCardId(int firstCardId) {
+        this.firstCardId = firstCardId;
+    }
+    // Packed card in the given deck slot, PackedCard.EMPTY once played
+    long deckCard(int slot) {
+        return this.deck[slot];
+    }
+
+    // The player's card in play, packed, PackedCard.EMPTY if none
+    long cardInPlay() {
+        return cardInPlay;
+    }
+    void setCardInPlay(long card) {
+        this.cardInPlay = card;
     }
 
     public int getSacredStones() {
@@ -116,9 +208,8 @@ public class Player implements Serializable {
         return this.sacredStones;
     }
 
-    public int rollInitiative() {
-        Random rand = new Random();
-        initiative = rand.nextInt(12) + 1;
+    public int rollInitiative(RandomGenerator random) {
+        initiative = random.nextInt(12) + 1;
         return initiative;
     }
     public int getInitiative() {
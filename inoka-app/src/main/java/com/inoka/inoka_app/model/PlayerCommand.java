@@ -0,0 +1,7 @@
+package com.inoka.inoka_app.model;
+
+/*
+ * Inbound /app/playerReady, /app/gotKnockout & /app/clashForfeit message
+ * playerId must be the sender's own UUID
+ */
+public record PlayerCommand(String playerId) {}
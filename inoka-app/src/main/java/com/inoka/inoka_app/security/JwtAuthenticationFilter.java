@@ -1,6 +1,7 @@
 package com.inoka.inoka_app.security;
 
 import java.io.IOException;
+import java.util.Optional;
 
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -36,8 +37,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     ) throws ServletException, IOException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtil.validateToken(jwt)) {
-                final String userId = jwtUtil.getUserId(jwt);
+            // Verified once, subject comes back from the same parse
+            Optional<String> verifiedUserId = (jwt != null) ? jwtUtil.verifyToken(jwt) : Optional.empty();
+            if (verifiedUserId.isPresent()) {
+                final String userId = verifiedUserId.get();
                 final PlayerPrincipal userDetails = userDetailsService.loadUserById(userId);
                 UsernamePasswordAuthenticationToken authenticationToken =
                     new UsernamePasswordAuthenticationToken(
@@ -1,7 +1,15 @@
 package com.inoka.inoka_app.security;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 
@@ -10,8 +18,11 @@ import org.springframework.stereotype.Component;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 
 @Component
@@ -20,35 +31,127 @@ public class JwtUtil {
     private String jwtSecret;
     @Value("${jwt.expiration}")
     private long jwtExpirationMs;
+    // Upper bound on tokens remembered as verified
+    @Value("${jwt.verified-cache-size:50000}")
+    private int verifiedCacheSize;
 
     private SecretKey key;
+    // Parsers are immutable & thread-safe, so one is built and shared
+    private JwtParser parser;
+    // SHA-256 of token --> Subject & expiry of a token whose signature was already checked
+    private final ConcurrentHashMap<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+    // Verification time by result: served from cache, verified by signature, or rejected
+    private final Timer cachedTimer;
+    private final Timer verifiedTimer;
+    private final Timer rejectedTimer;
+
+    public JwtUtil(MeterRegistry meterRegistry) {
+        this.cachedTimer = verifyTimer(meterRegistry, "cached");
+        this.verifiedTimer = verifyTimer(meterRegistry, "verified");
+        this.rejectedTimer = verifyTimer(meterRegistry, "rejected");
+    }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("inoka.auth.jwt.verify")
+            .description("Time to verify a JWT and extract its subject")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
 
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parser().verifyWith(key).build();
     }
 
     public String generateToken(String userId) {
+        Date issuedAt = new Date();
+        return this.sign(userId, issuedAt, new Date(issuedAt.getTime() + jwtExpirationMs));
+    }
+
+    // One token per player, all issued at the same instant
+    public List<String> generateTokens(List<String> userIds) {
+        Date issuedAt = new Date();
+        Date expiration = new Date(issuedAt.getTime() + jwtExpirationMs);
+        List<String> tokens = new ArrayList<>(userIds.size());
+        for (String userId : userIds) tokens.add(this.sign(userId, issuedAt, expiration));
+        return tokens;
+    }
+
+    private String sign(String userId, Date issuedAt, Date expiration) {
         return Jwts.builder()
             .subject(userId)
-            .issuedAt(new Date())
-            .expiration(new Date((new Date()).getTime() + jwtExpirationMs))
+            .issuedAt(issuedAt)
+            .expiration(expiration)
             .signWith(key)
             .compact();
     }
 
-    public boolean validateToken(String token) {
+    /*
+     * Verifies the token's signature & expiry once and returns its subject (player UUID)
+     * Tokens already verified are served from cache until their exp
+     * Returns Optional.empty() if the token is invalid or expired
+     */
+    public Optional<String> verifyToken(String token) {
+        long start = System.nanoTime();
+        if (token == null || token.isEmpty()) return timed(rejectedTimer, start, Optional.empty());
+        String tokenHash = hash(token);
+        long now = System.currentTimeMillis();
+
+        VerifiedToken cached = verifiedTokens.get(tokenHash);
+        if (cached != null) {
+            if (now < cached.expiresAtMillis()) return timed(cachedTimer, start, Optional.of(cached.userId()));
+            verifiedTokens.remove(tokenHash, cached);
+            return timed(rejectedTimer, start, Optional.empty());
+        }
+
+        Claims claims;
         try {
-            Jwts.parser().verifyWith(key).build().parseSignedClaims(token);
-            return true;
+            claims = parser.parseSignedClaims(token).getPayload();
+        }
+        catch (JwtException | IllegalArgumentException e) {
+            return timed(rejectedTimer, start, Optional.empty());
         }
-        catch (JwtException e) {
-            return false;
+        String userId = claims.getSubject();
+        if (userId == null) return timed(rejectedTimer, start, Optional.empty());
+        if (claims.getExpiration() != null) {
+            this.remember(tokenHash, new VerifiedToken(userId, claims.getExpiration().getTime()), now);
         }
+        return timed(verifiedTimer, start, Optional.of(userId));
+    }
+
+    private static Optional<String> timed(Timer timer, long start, Optional<String> result) {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    public boolean validateToken(String token) {
+        return verifyToken(token).isPresent();
     }
 
     public String getUserId(String token) {
-        Claims claims = Jwts.parser().verifyWith(key).build().parseSignedClaims(token).getPayload();
-        return claims.getSubject();
+        return verifyToken(token).orElseThrow(() -> new JwtException("Invalid or expired token"));
+    }
+
+    private void remember(String tokenHash, VerifiedToken verified, long now) {
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            verifiedTokens.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            // Still full of live tokens, verify this one again next time rather than grow
+            if (verifiedTokens.size() >= verifiedCacheSize) return;
+        }
+        verifiedTokens.put(tokenHash, verified);
     }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        }
+        catch (NoSuchAlgorithmException e) {
+            // Every JRE is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record VerifiedToken(String userId, long expiresAtMillis) {}
 }
@@ -1,6 +1,7 @@
 package com.inoka.inoka_app.security;
 
 import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -72,13 +73,13 @@ public class JwtWebSocketInterceptor implements ChannelInterceptor {
         // Remove "Bearer " prefix
         token = token.substring(7);
         
-        if (!jwtUtil.validateToken(token)) {
+        // Verify token & extract user ID in one pass
+        Optional<String> verifiedUserId = jwtUtil.verifyToken(token);
+        if (verifiedUserId.isEmpty()) {
             logger.warn("Invalid or expired token in WebSocket CONNECT");
             throw new IllegalArgumentException("Invalid or expired token");
         }
-        
-        // Extract user ID from token
-        String userId = jwtUtil.getUserId(token);
+        String userId = verifiedUserId.get();
         
         // Load full PlayerPrincipal using the same pattern as JwtAuthenticationFilter
         try {
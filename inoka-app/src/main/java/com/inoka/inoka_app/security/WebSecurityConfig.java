@@ -2,6 +2,7 @@ package com.inoka.inoka_app.security;
 
 import java.util.Arrays;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -13,7 +14,10 @@ import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
+import com.inoka.inoka_app.controller.ShardForwardingFilter;
 import com.inoka.inoka_app.service.CustomUserDetailsService;
+import com.inoka.inoka_app.service.GameService;
+import com.inoka.inoka_app.service.ShardRouter;
 
 @Configuration
 @EnableWebSecurity
@@ -21,15 +25,24 @@ public class WebSecurityConfig {
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
     private final AuthEntryPointJwt unauthorizedHandler;
+    private final ShardRouter shardRouter;
+    private final GameService gameService;
+    private final int managementPort;
 
     public WebSecurityConfig(
         JwtUtil jwtUtil,
         CustomUserDetailsService userDetailsService,
-        AuthEntryPointJwt unauthorizedHandler
+        AuthEntryPointJwt unauthorizedHandler,
+        ShardRouter shardRouter,
+        GameService gameService,
+        @Value("${management.server.port:-1}") int managementPort
     ) {
         this.jwtUtil = jwtUtil;
         this.userDetailsService = userDetailsService;
         this.unauthorizedHandler = unauthorizedHandler;
+        this.shardRouter = shardRouter;
+        this.gameService = gameService;
+        this.managementPort = managementPort;
     }
 
     // TODO: Configure for deployment
@@ -59,12 +72,20 @@ public class WebSecurityConfig {
             .authorizeHttpRequests(a -> a
                 .requestMatchers("/inoka/auth/**", "/inoka/player/add", "/inoka/player/refresh-token")
                 .permitAll()
+                // /inoka/player/add/bulk is left to anyRequest(), only a signed-in player may register guests in bulk
                 // Permit ALL SockJS endpoints - these are needed for the handshake
-                .requestMatchers("/ws/**").permitAll()
+                .requestMatchers("/ws/**", "/ws-native").permitAll()
+                .requestMatchers("/actuator/health").permitAll()
+                // Scraped by Prometheus without a player token, only on the management port, which is not published
+                .requestMatchers(request -> managementPort > 0 && request.getLocalPort() == managementPort).permitAll()
+                // Called by other nodes, checked against the shard secret in ShardController
+                .requestMatchers(ShardRouter.INTERNAL_PATH + "/**").permitAll()
                 .anyRequest().authenticated()
             );
 
             http.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+            // Needs the caller authenticated to route requests keyed by the caller
+            http.addFilterAfter(new ShardForwardingFilter(shardRouter, gameService), JwtAuthenticationFilter.class);
             return http.build();
     } 
 }
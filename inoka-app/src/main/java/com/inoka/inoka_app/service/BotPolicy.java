@@ -0,0 +1,123 @@
+package com.inoka.inoka_app.service;
+
+import java.util.Map;
+
+import com.inoka.inoka_app.model.Action;
+import com.inoka.inoka_app.model.Card;
+import com.inoka.inoka_app.model.CardStyle;
+import com.inoka.inoka_app.model.Game;
+import com.inoka.inoka_app.model.Player;
+
+/*
+ * What a bot does next, decided from the game as it stands: at most one move per bot per look,
+ * only ever for the bot itself. Table-wide steps (starting the game & clashes, ending turns)
+ * are left to the human players' clients, which always send them.
+ * Runs inside the game's mailbox, so the game can be read directly; every look is a handful of field reads.
+ */
+final class BotPolicy {
+
+    enum Kind {
+        READY,
+        PLAY_CARD,
+        ROLL_INITIATIVE,
+        ATTACK,
+        WIN_CLASH,
+        REMOVE_CARD,
+        PICK_UP_KNOCKOUT,
+        FORFEIT,
+        LEAVE
+    }
+
+    // arg is the card id for PLAY_CARD, the target's UUID for ATTACK
+    record Move(Kind kind, String botId, String arg) {}
+
+    private BotPolicy() {
+    }
+
+    /*
+     * Given a game, one of its bots, and the last action the bot already picked up a knockout for (or null),
+     * Return the bot's next move, or null if it has nothing to do
+     */
+    static Move decide(Game game, Player bot, Action knockoutTaken) {
+        String botId = bot.getId();
+        switch (game.getState()) {
+            case WAITING_FOR_PLAYERS:
+                return bot.isReady() ? null : new Move(Kind.READY, botId, null);
+            case DRAWING_CARDS:
+                if (game.hasCardInPlay(botId) || bot.deckSize() == 0) return null;
+                return new Move(Kind.PLAY_CARD, botId, strongestCard(bot).getId());
+            case CLASH_ROLL_INIT:
+                return game.hasInitiative(botId) ? null : new Move(Kind.ROLL_INITIATIVE, botId, null);
+            case CLASH_PLAYER_TURN:
+                // Last player standing claims the clash
+                if (game.numCardsInPlay() == 1) return game.hasCardInPlay(botId) ? new Move(Kind.WIN_CLASH, botId, null) : null;
+                if (!botId.equals(game.getCurrentPlayerId()) || !game.hasCardInPlay(botId)) return null;
+                return new Move(Kind.ATTACK, botId, chooseTarget(game, botId));
+            case CLASH_PROCESSING_DECISION:
+                Card own = game.getPlayerCardInPlay(botId);
+                if (own != null && own.getCurHp() <= 0) return new Move(Kind.REMOVE_CARD, botId, null);
+                return pickUpKnockout(game, botId, knockoutTaken);
+            case CLASH_PLAYER_REPLACING_CARD:
+                // A bot whose card was knocked out replaces it while it has cards left
+                if (!game.hasCardInPlay(botId) && game.hasInitiative(botId)) {
+                    return (bot.deckSize() > 0) ? new Move(Kind.PLAY_CARD, botId, strongestCard(bot).getId()) : new Move(Kind.FORFEIT, botId, null);
+                }
+                // The knocked out player may have removed their card before the bot picked up the knockout
+                return pickUpKnockout(game, botId, knockoutTaken);
+            default:
+                return null;
+        }
+    }
+
+    // The bot dealt the last hit and it knocked a card out
+    private static Move pickUpKnockout(Game game, String botId, Action knockoutTaken) {
+        Action lastAction = game.getLastAction();
+        if (lastAction == knockoutTaken || !botId.equals(lastAction.getDealingPlayerId()) || lastAction.getDamageDealt() < 0) return null;
+        Card received = game.getPlayerCardInPlay(lastAction.getReceivingPlayerId());
+        if (received != null && received.getCurHp() > 0) return null;
+        return new Move(Kind.PICK_UP_KNOCKOUT, botId, null);
+    }
+
+    // Highest hit points in the deck, ties go to the higher level
+    private static Card strongestCard(Player bot) {
+        Card strongest = null;
+        for (Card card : bot.getDeck()) {
+            if (strongest == null || card.getCurHp() > strongest.getCurHp()
+                || (card.getCurHp() == strongest.getCurHp() && card.getLevel() > strongest.getLevel())) {
+                strongest = card;
+            }
+        }
+        return strongest;
+    }
+
+    /*
+     * The opponent's card the bot's style beats with the fewest hit points left,
+     * otherwise whichever opponent's card has the fewest hit points left
+     */
+    private static String chooseTarget(Game game, String botId) {
+        Map<String, Card> cardsInPlay = game.getCardsInPlay();
+        CardStyle favoured = favouredAgainst(cardsInPlay.get(botId).getStyle());
+        String target = null;
+        int targetScore = Integer.MAX_VALUE;
+        for (Map.Entry<String, Card> entry : cardsInPlay.entrySet()) {
+            if (entry.getKey().equals(botId)) continue;
+            Card card = entry.getValue();
+            // Favoured matchups always rank ahead of the rest
+            int score = card.getCurHp() + ((card.getStyle() == favoured) ? 0 : 1000);
+            if (score < targetScore) {
+                target = entry.getKey();
+                targetScore = score;
+            }
+        }
+        return target;
+    }
+
+    // Attacker -> Trickster -> Defender -> Attacker, as in Game.dealDamage
+    private static CardStyle favouredAgainst(CardStyle style) {
+        return switch (style) {
+            case ATTACKER -> CardStyle.TRICKSTER;
+            case DEFENDER -> CardStyle.ATTACKER;
+            case TRICKSTER -> CardStyle.DEFENDER;
+        };
+    }
+}
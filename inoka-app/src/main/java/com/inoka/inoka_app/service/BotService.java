@@ -0,0 +1,203 @@
+package com.inoka.inoka_app.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import com.inoka.inoka_app.event.GameRemovedEvent;
+import com.inoka.inoka_app.event.GameUpdateEvent;
+import com.inoka.inoka_app.model.Action;
+import com.inoka.inoka_app.model.Game;
+import com.inoka.inoka_app.model.GameState;
+import com.inoka.inoka_app.model.Player;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Server-side bot players, seated in public lobbies that have waited too long for humans.
+ * Bots have no WebSocket session: every game update is looked at from within the game's mailbox,
+ * BotPolicy picks each bot's next move, and the move is sent through the same GameService operations players use.
+ *
+ * Moves go out on a small scheduler after a think time (so humans at the table can follow them),
+ * and at most max-pending moves are queued or running at once; anything past that is dropped
+ * and picked up again by the next sweep, so a flood of bot moves never holds up human games.
+ * Bots leave a game once no human is left in it.
+ */
+@Service
+public class BotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BotService.class);
+    private final GameService gameService;
+    private final boolean enabled;
+    private final long fillAfterNanos;
+    private final int tableSize;
+    private final Duration thinkTime;
+    private final Semaphore pendingMoves;
+    // Game UUID --> Bot bookkeeping, for every game with bots in it
+    private final ConcurrentHashMap<String, BotTable> tables = new ConcurrentHashMap<>();
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    // Cleared once the first sweep has looked at every game, including any with bots recovered from the journal
+    private volatile boolean discovering = true;
+    private final Counter moves;
+    private final Counter droppedMoves;
+
+    public BotService(
+        GameService gameService,
+        MeterRegistry meterRegistry,
+        @Value("${inoka.bots.enabled:false}") boolean enabled,
+        @Value("${inoka.bots.fill-after:30s}") Duration fillAfter,
+        @Value("${inoka.bots.table-size:4}") int tableSize,
+        @Value("${inoka.bots.think-time:2s}") Duration thinkTime,
+        @Value("${inoka.bots.threads:2}") int threads,
+        @Value("${inoka.bots.max-pending:10000}") int maxPending,
+        @Value("${inoka.bots.sweep-interval:1s}") Duration sweepInterval
+    ) {
+        this.gameService = gameService;
+        this.enabled = enabled;
+        this.fillAfterNanos = fillAfter.toNanos();
+        this.tableSize = tableSize;
+        this.thinkTime = thinkTime;
+        this.pendingMoves = new Semaphore(maxPending);
+        this.moves = Counter.builder("inoka.bots.moves")
+            .description("Moves sent by bot players")
+            .register(meterRegistry);
+        this.droppedMoves = Counter.builder("inoka.bots.moves.dropped")
+            .description("Bot moves dropped because too many were pending, retried by the next sweep")
+            .register(meterRegistry);
+        meterRegistry.gauge("inoka.bots.moves.pending", pendingMoves, semaphore -> maxPending - semaphore.availablePermits());
+        scheduler.setPoolSize(threads);
+        scheduler.setThreadNamePrefix("game-bots-");
+        scheduler.initialize();
+        if (enabled) scheduler.scheduleWithFixedDelay(this::sweep, sweepInterval);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /*
+     * Seats bots in lobbies nobody has joined for fill-after,
+     * then takes another look at every game with bots in case a move was dropped or rejected
+     */
+    void sweep() {
+        long now = System.nanoTime();
+        for (GameActivity activity : gameService.getGameActivity()) {
+            if (activity.state() == GameState.WAITING_FOR_PLAYERS && now - activity.lastChangeNanos() >= fillAfterNanos) {
+                gameService.seatBots(activity.gameId(), tableSize).thenAccept(seated -> {
+                    if (seated > 0) logger.debug("Seated {} bot(s) in game {}", seated, activity.gameId());
+                });
+            }
+        }
+        Iterable<String> gameIds = discovering ? gameService.getGameActivity().stream().map(GameActivity::gameId).toList() : tables.keySet();
+        discovering = false;
+        for (String gameId : gameIds) {
+            gameService.inspect(gameId, game -> {
+                this.decide(game);
+                return null;
+            });
+        }
+    }
+
+    // Published from within the game's mailbox
+    @EventListener
+    public void handleGameUpdateEvent(GameUpdateEvent event) {
+        if (enabled) this.decide(event.getGame());
+    }
+
+    @EventListener
+    public void handleGameRemovedEvent(GameRemovedEvent event) {
+        tables.remove(event.getGameId());
+    }
+
+    // Must be called from within the game's mailbox
+    private void decide(Game game) {
+        boolean humans = false;
+        boolean bots = false;
+        for (Player player : game.getPlayers().values()) {
+            if (player.isBot()) bots = true;
+            else humans = true;
+        }
+        if (!bots) return;
+        BotTable table = tables.computeIfAbsent(game.getId(), BotTable::new);
+
+        for (Player player : game.getPlayers().values()) {
+            if (!player.isBot() || table.pending.contains(player.getId())) continue;
+            BotPolicy.Move move = humans
+                ? BotPolicy.decide(game, player, table.knockoutsTaken.get(player.getId()))
+                : new BotPolicy.Move(BotPolicy.Kind.LEAVE, player.getId(), null);
+            if (move == null) continue;
+            if (!pendingMoves.tryAcquire()) {
+                droppedMoves.increment();
+                continue;
+            }
+            table.pending.add(move.botId());
+            if (move.kind() == BotPolicy.Kind.PICK_UP_KNOCKOUT) table.knockoutsTaken.put(move.botId(), game.getLastAction());
+            // No one at the table to follow a bot's move once the humans have gone
+            this.schedule(table, move, humans ? thinkTime : Duration.ZERO);
+        }
+    }
+
+    private void schedule(BotTable table, BotPolicy.Move move, Duration delay) {
+        Runnable send = () -> this.send(move).whenComplete((result, error) -> {
+            if (error != null) logger.warn("Bot {} failed to {}", move.botId(), move.kind(), error);
+            table.pending.remove(move.botId());
+            pendingMoves.release();
+            // The update the move caused was looked at while it was still pending, look again for the bot's next move
+            gameService.inspect(table.gameId, game -> {
+                this.decide(game);
+                return null;
+            });
+        });
+        try {
+            if (delay.isZero()) scheduler.execute(send);
+            else scheduler.schedule(send, Instant.now().plus(delay));
+        }
+        catch (RuntimeException e) {
+            // Scheduler shut down
+            table.pending.remove(move.botId());
+            pendingMoves.release();
+        }
+    }
+
+    private CompletableFuture<?> send(BotPolicy.Move move) {
+        moves.increment();
+        String botId = move.botId();
+        return switch (move.kind()) {
+            case READY -> gameService.setPlayerReady(botId);
+            case PLAY_CARD -> gameService.putCardInPlay(botId, move.arg());
+            case ROLL_INITIATIVE -> gameService.rollInitForPlayer(botId);
+            case ATTACK -> gameService.resolveClashAction(botId, move.arg());
+            case WIN_CLASH -> gameService.playerWonClash(botId);
+            case REMOVE_CARD -> gameService.removePlayerCardInPlay(botId);
+            case PICK_UP_KNOCKOUT -> gameService.playerPickUpKnockout(botId);
+            case FORFEIT -> gameService.playerForfeitClash(botId);
+            case LEAVE -> gameService.removePlayerFromGame(botId);
+        };
+    }
+
+    private static final class BotTable {
+        private final String gameId;
+        // UUIDs of bots with a move queued or running, they are not asked for another until it completes
+        private final Set<String> pending = ConcurrentHashMap.newKeySet();
+        // Bot UUID --> Last action the bot picked up a knockout for, so it picks it up only once
+        private final Map<String, Action> knockoutsTaken = new ConcurrentHashMap<>();
+
+        BotTable(String gameId) {
+            this.gameId = gameId;
+        }
+    }
+}
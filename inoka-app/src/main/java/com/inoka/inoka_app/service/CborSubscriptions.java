@@ -0,0 +1,62 @@
+package com.inoka.inoka_app.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import com.inoka.inoka_app.config.CborEncoding;
+
+/*
+ * Tracks which games have subscribers on their CBOR topic,
+ * so games nobody watches in CBOR are never encoded twice.
+ */
+@Service
+public class CborSubscriptions {
+    private static final String GAME_TOPIC = "/topic/game/";
+
+    // Game UUID --> Number of CBOR subscriptions
+    private final ConcurrentHashMap<String, Integer> subscribersByGame = new ConcurrentHashMap<>();
+    // Session id --> Subscription id --> Game UUID, for CBOR subscriptions only
+    private final ConcurrentHashMap<String, Map<String, String>> subscriptionsBySession = new ConcurrentHashMap<>();
+
+    public boolean hasSubscribers(String gameId) {
+        return subscribersByGame.containsKey(gameId);
+    }
+
+    @EventListener
+    public void handleSubscribe(SessionSubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        String destination = accessor.getDestination();
+        if (destination == null || !destination.startsWith(GAME_TOPIC) || !destination.endsWith(CborEncoding.TOPIC_SUFFIX)) return;
+
+        String gameId = destination.substring(GAME_TOPIC.length(), destination.length() - CborEncoding.TOPIC_SUFFIX.length());
+        subscriptionsBySession.computeIfAbsent(accessor.getSessionId(), id -> new ConcurrentHashMap<>())
+            .put(accessor.getSubscriptionId(), gameId);
+        subscribersByGame.merge(gameId, 1, Integer::sum);
+    }
+
+    @EventListener
+    public void handleUnsubscribe(SessionUnsubscribeEvent event) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = subscriptionsBySession.get(accessor.getSessionId());
+        if (subscriptions == null) return;
+        String gameId = subscriptions.remove(accessor.getSubscriptionId());
+        if (gameId != null) this.release(gameId);
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        Map<String, String> subscriptions = subscriptionsBySession.remove(event.getSessionId());
+        if (subscriptions != null) subscriptions.values().forEach(this::release);
+    }
+
+    private void release(String gameId) {
+        subscribersByGame.computeIfPresent(gameId, (id, count) -> (count > 1) ? count - 1 : null);
+    }
+}
@@ -0,0 +1,8 @@
+package com.inoka.inoka_app.service;
+
+import com.inoka.inoka_app.model.Game;
+
+/*
+ * A game read back from a checkpoint, and the lsn of the last journal record it reflects
+ */
+record CheckpointedGame(Game game, long lsn) {}
@@ -1,7 +1,12 @@
 package com.inoka.inoka_app.service;
 
+import java.time.Duration;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -11,12 +16,30 @@ import com.inoka.inoka_app.model.Player;
 import com.inoka.inoka_app.repositories.PlayerRepository;
 import com.inoka.inoka_app.security.PlayerPrincipal;
 
+/*
+ * Loads the principal behind every authenticated request and WebSocket CONNECT.
+ * Principals are cached for a short time so authentication does not cost a SELECT per request;
+ * PlayerService evicts a player whenever its row changes.
+ */
 @Service
 public class CustomUserDetailsService implements UserDetailsService {
     private PlayerRepository playerRepository;
+    private final int cacheSize;
+    private final long cacheTtlNanos;
+    // Player UUID --> Principal loaded from the database & when it stops being served
+    private final ConcurrentHashMap<String, CachedPrincipal> principals = new ConcurrentHashMap<>();
+    // Player UUID --> Load in flight, shared by concurrent callers
+    // Dropped when the player is evicted, so a load racing with a write to that player never caches the old row
+    private final ConcurrentHashMap<String, CompletableFuture<PlayerPrincipal>> loads = new ConcurrentHashMap<>();
 
-    public CustomUserDetailsService(PlayerRepository playerRepository) {
+    public CustomUserDetailsService(
+        PlayerRepository playerRepository,
+        @Value("${inoka.auth.principal-cache-size:50000}") int cacheSize,
+        @Value("${inoka.auth.principal-cache-ttl:5m}") Duration cacheTtl
+    ) {
         this.playerRepository = playerRepository;
+        this.cacheSize = cacheSize;
+        this.cacheTtlNanos = cacheTtl.toNanos();
     }
 
     @Override
@@ -26,10 +49,67 @@ public class CustomUserDetailsService implements UserDetailsService {
     }
 
     public PlayerPrincipal loadUserById(String userId) {
-        Optional<Player> playerCheck = playerRepository.findById(userId);
-        if (playerCheck.isEmpty()) {
-            throw new UsernameNotFoundException("Player not found with id: " + userId);
+        long now = System.nanoTime();
+        CachedPrincipal cached = principals.get(userId);
+        if (cached != null) {
+            if (now - cached.expiresAtNanos() < 0) return cached.principal();
+            principals.remove(userId, cached);
         }
-        return new PlayerPrincipal(playerCheck.get());
+
+        CompletableFuture<PlayerPrincipal> mine = new CompletableFuture<>();
+        CompletableFuture<PlayerPrincipal> load = loads.computeIfAbsent(userId, id -> mine);
+        if (load != mine) {
+            try {
+                return load.join();
+            }
+            catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) throw cause;
+                throw e;
+            }
+        }
+
+        try {
+            Optional<Player> playerCheck = playerRepository.findById(userId);
+            if (playerCheck.isEmpty()) throw new UsernameNotFoundException("Player not found with id: " + userId);
+            PlayerPrincipal principal = new PlayerPrincipal(playerCheck.get());
+            // Cached only if this load was not evicted meanwhile, evictPlayer removes the load under the same lock
+            loads.computeIfPresent(userId, (id, current) -> {
+                if (current == mine) this.remember(userId, principal, now);
+                return null;
+            });
+            mine.complete(principal);
+            return principal;
+        }
+        catch (RuntimeException | Error e) {
+            // Callers sharing this load would otherwise wait forever
+            loads.remove(userId, mine);
+            mine.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /*
+     * Drops a player's cached principal, called after its row is written or deleted
+     */
+    public void evictPlayer(String userId) {
+        // Load first, so a load that already cached its principal has it removed below, and one that has not never will
+        loads.remove(userId);
+        principals.remove(userId);
     }
+
+    public void evictAll() {
+        loads.clear();
+        principals.clear();
+    }
+
+    private void remember(String userId, PlayerPrincipal principal, long now) {
+        if (principals.size() >= cacheSize) {
+            principals.values().removeIf(entry -> now - entry.expiresAtNanos() >= 0);
+            // Still full of live principals, load this one again next time rather than grow
+            if (principals.size() >= cacheSize) return;
+        }
+        principals.put(userId, new CachedPrincipal(principal, now + cacheTtlNanos));
+    }
+
+    private record CachedPrincipal(PlayerPrincipal principal, long expiresAtNanos) {}
 }
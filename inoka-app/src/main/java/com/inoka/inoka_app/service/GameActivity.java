@@ -0,0 +1,8 @@
+package com.inoka.inoka_app.service;
+
+import com.inoka.inoka_app.model.GameState;
+
+/*
+ * Last observed state of a live game and when it last changed (System.nanoTime())
+ */
+public record GameActivity(String gameId, GameState state, long lastChangeNanos) {}
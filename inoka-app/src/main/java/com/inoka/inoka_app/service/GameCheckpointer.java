@@ -0,0 +1,223 @@
+package com.inoka.inoka_app.service;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.IntStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import com.inoka.inoka_app.model.Game;
+import com.inoka.inoka_app.model.GameCodec;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Periodically writes every unfinished game to a checkpoint file, and once more at shutdown.
+ * On startup the last checkpoint is loaded before the journal is replayed,
+ * so only the records written since it need replaying.
+ * Journal segments a checkpoint fully covers are deleted once it is on disk.
+ *
+ * File layout: int magic, int GameCodec.FORMAT_VERSION, long journal lsn, int game count,
+ * then per game: int frame length, long lsn the game reflects, GameCodec bytes
+ */
+@Service
+public class GameCheckpointer {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameCheckpointer.class);
+    // "INKC"
+    private static final int MAGIC = 0x494E4B43;
+    private static final String FILE_NAME = "games.checkpoint";
+
+    private final GameService gameService;
+    private final GameJournal journal;
+    private final boolean enabled;
+    private final Path directory;
+    private final Duration interval;
+    private final Timer writeTime;
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    // Keeps a scheduled checkpoint & the shutdown checkpoint from writing at once
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    public GameCheckpointer(
+        GameService gameService,
+        GameJournal journal,
+        MeterRegistry meterRegistry,
+        @Value("${inoka.checkpoint.enabled:false}") boolean enabled,
+        @Value("${inoka.checkpoint.dir:checkpoints}") String directory,
+        @Value("${inoka.checkpoint.interval:1m}") Duration interval
+    ) {
+        // Only checkpoints let the journal drop old segments, without them it grows and replays from the start forever
+        if (journal.isEnabled() && !enabled) {
+            throw new IllegalStateException("inoka.checkpoint.enabled must be true when inoka.journal.enabled is true");
+        }
+        this.gameService = gameService;
+        this.journal = journal;
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.interval = interval;
+        this.writeTime = Timer.builder("inoka.checkpoint.write")
+            .description("Time to capture and write every unfinished game to a checkpoint")
+            .register(meterRegistry);
+    }
+
+    /*
+     * Restores games from the last checkpoint & the journal before any traffic arrives
+     */
+    @PostConstruct
+    public void recover() {
+        Checkpoint checkpoint = enabled ? this.load() : new Checkpoint(0, List.of());
+        gameService.recover(checkpoint.games(), checkpoint.lsn());
+        if (!enabled) return;
+        scheduler.setThreadNamePrefix("game-checkpoint-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::checkpoint, Instant.now().plus(interval), interval);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) return;
+        scheduler.shutdown();
+        writeLock.lock();
+        try {
+            this.write();
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Skipped if the previous checkpoint is still being written
+    void checkpoint() {
+        if (!writeLock.tryLock()) return;
+        try {
+            this.write();
+        }
+        finally {
+            writeLock.unlock();
+        }
+    }
+
+    /*
+     * Writes a new checkpoint next to the current one, then swaps it in
+     * A crash mid-write leaves the previous checkpoint in place
+     */
+    private void write() {
+        long start = System.nanoTime();
+        // Read before any game is captured: every record up to here belongs to a captured game, or a finished or removed one
+        long checkpointLsn = journal.lastLsn();
+        List<byte[]> frames = gameService.captureGames(GameCheckpointer::encode).join();
+        Path target = directory.resolve(FILE_NAME);
+        Path temp = directory.resolve(FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(directory);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(GameCodec.FORMAT_VERSION);
+                out.writeLong(checkpointLsn);
+                out.writeInt(frames.size());
+                for (byte[] frame : frames) {
+                    out.writeInt(frame.length);
+                    out.write(frame);
+                }
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            logger.warn("Could not write game checkpoint to {}", target.toAbsolutePath(), e);
+            return;
+        }
+        journal.trim(checkpointLsn);
+        writeTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        logger.debug("Checkpointed {} game(s) at lsn {}", frames.size(), checkpointLsn);
+    }
+
+    /*
+     * Reads the last checkpoint, decoding its games in parallel
+     * A checkpoint that cannot be read stops startup rather than silently dropping games
+     */
+    private Checkpoint load() {
+        Path file = directory.resolve(FILE_NAME);
+        if (!Files.exists(file)) return new Checkpoint(0, List.of());
+        long start = System.nanoTime();
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not read game checkpoint " + file.toAbsolutePath(), e);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt() != MAGIC || buffer.getInt() != GameCodec.FORMAT_VERSION) {
+            throw new IllegalStateException("Unrecognized game checkpoint " + file.toAbsolutePath());
+        }
+        long checkpointLsn = buffer.getLong();
+        int count = buffer.getInt();
+        // Frame boundaries are found in one pass, the frames themselves are independent
+        int[] offsets = new int[count];
+        int[] lengths = new int[count];
+        for (int i = 0; i < count; i++) {
+            lengths[i] = buffer.getInt();
+            offsets[i] = buffer.position();
+            buffer.position(offsets[i] + lengths[i]);
+        }
+        List<CheckpointedGame> games = IntStream.range(0, count).parallel()
+            .mapToObj(i -> decode(bytes, offsets[i], lengths[i]))
+            .toList();
+        logger.info("Loaded {} game(s) from checkpoint at lsn {} in {} ms", games.size(), checkpointLsn,
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return new Checkpoint(checkpointLsn, games);
+    }
+
+    // Runs in the game's mailbox
+    private static byte[] encode(Game game, long lsn) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(lsn);
+            GameCodec.write(game, out);
+        }
+        catch (IOException e) {
+            // In-memory stream, cannot happen
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static CheckpointedGame decode(byte[] bytes, int offset, int length) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, offset, length))) {
+            long lsn = in.readLong();
+            return new CheckpointedGame(GameCodec.read(in), lsn);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Corrupt game in checkpoint", e);
+        }
+    }
+
+    private record Checkpoint(long lsn, List<CheckpointedGame> games) {}
+}
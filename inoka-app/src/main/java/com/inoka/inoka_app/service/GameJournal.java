@@ -0,0 +1,396 @@
+package com.inoka.inoka_app.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Append-only log of every state-changing game command, kept in memory-mapped segment files.
+ * Appending copies a few dozen bytes into the mapped segment under a short lock, nothing is synced on the command path.
+ * A background flusher forces everything appended since its last run to disk in one call (group commit),
+ * so a process crash loses nothing and a machine crash loses at most one flush interval.
+ * Each run appends to a new segment, earlier segments are only ever read back by replay(),
+ * and deleted by trim() once a checkpoint covers every record in them,
+ * which is why GameCheckpointer refuses to start with the journal on and checkpoints off.
+ *
+ * Frame layout: int body length, int CRC32 of lsn & body, long lsn, body
+ */
+@Service
+public class GameJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameJournal.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+    private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES;
+    private static final JournalRecord.Type[] TYPES = JournalRecord.Type.values();
+    // String length markers
+    private static final short NULL_STRING = -1;
+    private static final short UUID_STRING = -2;
+
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentBytes;
+    private final Duration flushInterval;
+    private final Timer flushTime;
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final ThreadPoolTaskScheduler flusher = new ThreadPoolTaskScheduler();
+    // Segment being appended to, null until replay() has run
+    // Guarded by appendLock, as are the fields below
+    private Segment current;
+    private long lastLsn;
+    // Full segments not yet forced to disk
+    private final List<Segment> filled = new ArrayList<>();
+    // Segments no longer appended to, with the lsn of the last record in each, oldest first
+    private final List<ClosedSegment> closed = new ArrayList<>();
+
+    public GameJournal(
+        MeterRegistry meterRegistry,
+        @Value("${inoka.journal.enabled:false}") boolean enabled,
+        @Value("${inoka.journal.dir:journal}") String directory,
+        @Value("${inoka.journal.segment-size:64MB}") DataSize segmentSize,
+        @Value("${inoka.journal.flush-interval:5ms}") Duration flushInterval
+    ) {
+        this.enabled = enabled;
+        this.directory = Path.of(directory);
+        this.segmentBytes = (int) Math.min(Integer.MAX_VALUE, segmentSize.toBytes());
+        this.flushInterval = flushInterval;
+        this.flushTime = Timer.builder("inoka.journal.flush")
+            .description("Time to force appended journal records to disk")
+            .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /*
+     * Feeds every record written by previous runs to the consumer along with its lsn, oldest first,
+     * then opens a new segment and starts accepting appends
+     * Returns the number of records replayed
+     */
+    int replay(ObjLongConsumer<JournalRecord> consumer) {
+        if (!enabled) return 0;
+        int replayed = 0;
+        long lastSegment = 0;
+        try {
+            Files.createDirectories(directory);
+            for (Path path : this.segments()) {
+                replayed += this.replaySegment(path, consumer);
+                lastSegment = segmentNumber(path);
+                closed.add(new ClosedSegment(path, lastLsn));
+            }
+            appendLock.lock();
+            try {
+                current = this.openSegment(lastSegment + 1);
+            }
+            finally {
+                appendLock.unlock();
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not open game journal in " + directory.toAbsolutePath(), e);
+        }
+        flusher.setThreadNamePrefix("game-journal-");
+        flusher.initialize();
+        flusher.scheduleWithFixedDelay(this::flush, flushInterval);
+        logger.info("Replayed {} journal record(s) from {}, appending to {}", replayed, directory.toAbsolutePath(), current.path.getFileName());
+        return replayed;
+    }
+
+    /*
+     * Appends a record, returning once it is in the mapped segment
+     * Records are dropped while the journal is disabled or has not been replayed yet
+     */
+    void append(JournalRecord record) {
+        if (!enabled) return;
+        byte[] body = encode(record);
+        appendLock.lock();
+        try {
+            if (current == null) return;
+            if (current.buffer.remaining() < HEADER_BYTES + body.length) {
+                filled.add(current);
+                closed.add(new ClosedSegment(current.path, lastLsn));
+                current = this.openSegment(current.number + 1);
+            }
+            long lsn = ++lastLsn;
+            CRC32 crc = new CRC32();
+            crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, lsn));
+            crc.update(body);
+            current.buffer.putInt(body.length).putInt((int) crc.getValue()).putLong(lsn).put(body);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Could not roll game journal segment", e);
+        }
+        finally {
+            appendLock.unlock();
+        }
+    }
+
+    // Sequence number of the last record appended or replayed
+    long lastLsn() {
+        appendLock.lock();
+        try {
+            return lastLsn;
+        }
+        finally {
+            appendLock.unlock();
+        }
+    }
+
+    /*
+     * Deletes the segments that hold no record past the given lsn
+     * Called once a checkpoint reflecting every record up to that lsn is safely on disk
+     */
+    void trim(long lsn) {
+        List<Path> obsolete = new ArrayList<>();
+        appendLock.lock();
+        try {
+            while (!closed.isEmpty() && closed.get(0).lastLsn() <= lsn) obsolete.add(closed.remove(0).path());
+        }
+        finally {
+            appendLock.unlock();
+        }
+        for (Path path : obsolete) {
+            try {
+                Files.deleteIfExists(path);
+            }
+            catch (IOException e) {
+                logger.warn("Could not delete journal segment {}", path.getFileName(), e);
+            }
+        }
+        if (!obsolete.isEmpty()) logger.debug("Trimmed {} journal segment(s) up to lsn {}", obsolete.size(), lsn);
+    }
+
+    /*
+     * Forces everything appended since the last flush to disk
+     * Only the flusher and shutdown call this, never a command
+     */
+    void flush() {
+        List<Segment> toClose;
+        Segment segment;
+        int from, to;
+        appendLock.lock();
+        try {
+            if (current == null) return;
+            toClose = new ArrayList<>(filled);
+            filled.clear();
+            segment = current;
+            from = segment.flushedPosition;
+            to = segment.buffer.position();
+            segment.flushedPosition = to;
+        }
+        finally {
+            appendLock.unlock();
+        }
+        if (toClose.isEmpty() && to == from) return;
+
+        long start = System.nanoTime();
+        for (Segment full : toClose) {
+            full.buffer.force(full.flushedPosition, full.buffer.position() - full.flushedPosition);
+            full.close();
+        }
+        if (to > from) segment.buffer.force(from, to - from);
+        flushTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) return;
+        flusher.shutdown();
+        this.flush();
+        appendLock.lock();
+        try {
+            if (current != null) current.close();
+            current = null;
+        }
+        finally {
+            appendLock.unlock();
+        }
+    }
+
+    private List<Path> segments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                .filter(path -> segmentNumber(path) > 0)
+                .sorted((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b)))
+                .toList();
+        }
+    }
+
+    // Returns 0 for files that are not journal segments
+    private static long segmentNumber(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) return 0;
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        }
+        catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private Segment openSegment(long number) throws IOException {
+        Path path = directory.resolve(String.format("%s%016d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        // Mapping past the end grows the file, unwritten space reads back as zeros
+        return new Segment(number, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes));
+    }
+
+    /*
+     * Replays records until the end of the segment's written part
+     * A zero length marks space never written, a bad checksum a record torn by a crash
+     */
+    private int replaySegment(Path path, ObjLongConsumer<JournalRecord> consumer) throws IOException {
+        int replayed = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            while (buffer.remaining() >= HEADER_BYTES) {
+                int length = buffer.getInt();
+                if (length <= 0) break;
+                int checksum = buffer.getInt();
+                long lsn = buffer.getLong();
+                if (length > buffer.remaining()) {
+                    logger.warn("Journal segment {} ends in a truncated record at lsn {}", path.getFileName(), lsn);
+                    break;
+                }
+                byte[] body = new byte[length];
+                buffer.get(body);
+                CRC32 crc = new CRC32();
+                crc.update(ByteBuffer.allocate(Long.BYTES).putLong(0, lsn));
+                crc.update(body);
+                JournalRecord record = ((int) crc.getValue() == checksum) ? decode(ByteBuffer.wrap(body)) : null;
+                if (record == null) {
+                    logger.warn("Journal segment {} ends in a corrupt record at lsn {}", path.getFileName(), lsn);
+                    break;
+                }
+                lastLsn = Math.max(lastLsn, lsn);
+                consumer.accept(record, lsn);
+                replayed++;
+            }
+        }
+        return replayed;
+    }
+
+    private static byte[] encode(JournalRecord record) {
+        byte[] arg = (record.arg() != null) ? record.arg().getBytes(StandardCharsets.UTF_8) : null;
+        // Ids take at most the length of their UTF-8 form, usually 16 bytes as a UUID
+        int maxBytes = 1 + maxIdBytes(record.gameId()) + maxIdBytes(record.playerId()) + Short.BYTES + ((arg != null) ? arg.length : 0) + Long.BYTES;
+        ByteBuffer body = ByteBuffer.allocate(maxBytes);
+        body.put((byte) record.type().ordinal());
+        putId(body, record.gameId());
+        putId(body, record.playerId());
+        putString(body, arg);
+        body.putLong(record.value());
+        return Arrays.copyOf(body.array(), body.position());
+    }
+
+    // Returns null if the body is not a record this version understands
+    private static JournalRecord decode(ByteBuffer body) {
+        try {
+            int type = body.get();
+            if (type < 0 || type >= TYPES.length) return null;
+            return new JournalRecord(TYPES[type], getString(body), getString(body), getString(body), body.getLong());
+        }
+        catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static int maxIdBytes(String id) {
+        return Short.BYTES + ((id != null) ? Math.max(2 * Long.BYTES, id.length() * 3) : 0);
+    }
+
+    // Canonical UUID strings are written as 16 bytes, anything else as UTF-8
+    private static void putId(ByteBuffer buffer, String id) {
+        UUID uuid = canonicalUuid(id);
+        if (uuid == null) {
+            putString(buffer, (id != null) ? id.getBytes(StandardCharsets.UTF_8) : null);
+            return;
+        }
+        buffer.putShort(UUID_STRING).putLong(uuid.getMostSignificantBits()).putLong(uuid.getLeastSignificantBits());
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] utf8) {
+        if (utf8 == null) {
+            buffer.putShort(NULL_STRING);
+            return;
+        }
+        if (utf8.length > Short.MAX_VALUE) throw new IllegalArgumentException("Journal field too long: " + utf8.length + " bytes");
+        buffer.putShort((short) utf8.length).put(utf8);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length == NULL_STRING) return null;
+        if (length == UUID_STRING) return new UUID(buffer.getLong(), buffer.getLong()).toString();
+        byte[] utf8 = new byte[length];
+        buffer.get(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    private static UUID canonicalUuid(String id) {
+        if (id == null || id.length() != 36) return null;
+        try {
+            UUID uuid = UUID.fromString(id);
+            // Only ids that read back identically, e.g. not upper case ones
+            return uuid.toString().equals(id) ? uuid : null;
+        }
+        catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private record ClosedSegment(Path path, long lastLsn) {}
+
+    private static final class Segment {
+        private final long number;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        // Everything before this position has been forced to disk
+        private int flushedPosition;
+
+        Segment(long number, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.number = number;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            }
+            catch (IOException e) {
+                logger.warn("Could not close journal segment {}", path.getFileName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.inoka.inoka_app.service;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import com.inoka.inoka_app.event.GameRemovedEvent;
+import com.inoka.inoka_app.model.GameState;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Evicts games from GameService once they are no longer worth keeping in memory:
+ * finished games, lobbies nobody joined, games nobody touched,
+ * and started games whose players have all disconnected.
+ */
+@Service
+public class GameLifecycleManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameLifecycleManager.class);
+    private final GameService gameService;
+    // Players of a sharded node's games may be connected to any node, only the TTLs apply
+    private final boolean trackConnections;
+    private final long finishedTtlNanos;
+    private final long lobbyTtlNanos;
+    private final long idleTtlNanos;
+    private final long disconnectGraceNanos;
+    // Player UUID --> Number of open WebSocket sessions
+    private final ConcurrentHashMap<String, Integer> connectedPlayers = new ConcurrentHashMap<>();
+    private final Map<GameRemovedEvent.Reason, Counter> evictions = new EnumMap<>(GameRemovedEvent.Reason.class);
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+
+    public GameLifecycleManager(
+        GameService gameService,
+        ShardRouter shardRouter,
+        MeterRegistry meterRegistry,
+        @Value("${inoka.games.finished-ttl:2m}") Duration finishedTtl,
+        @Value("${inoka.games.lobby-ttl:30m}") Duration lobbyTtl,
+        @Value("${inoka.games.idle-ttl:20m}") Duration idleTtl,
+        @Value("${inoka.games.disconnect-grace:2m}") Duration disconnectGrace,
+        @Value("${inoka.games.sweep-interval:30s}") Duration sweepInterval
+    ) {
+        this.gameService = gameService;
+        this.trackConnections = !shardRouter.isEnabled();
+        this.finishedTtlNanos = finishedTtl.toNanos();
+        this.lobbyTtlNanos = lobbyTtl.toNanos();
+        this.idleTtlNanos = idleTtl.toNanos();
+        this.disconnectGraceNanos = disconnectGrace.toNanos();
+        for (GameRemovedEvent.Reason reason : GameRemovedEvent.Reason.values()) {
+            evictions.put(reason, Counter.builder("inoka.games.evicted")
+                .description("Games removed from memory")
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry));
+        }
+        scheduler.setThreadNamePrefix("game-lifecycle-");
+        scheduler.initialize();
+        scheduler.scheduleWithFixedDelay(this::sweep, sweepInterval);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /*
+     * Evicts every game past the TTL of its current state
+     */
+    void sweep() {
+        long now = System.nanoTime();
+        Set<String> connectedGames = this.gamesWithConnectedPlayers();
+        int evicted = 0;
+
+        for (GameActivity activity : gameService.getGameActivity()) {
+            long idleNanos = now - activity.lastChangeNanos();
+            GameRemovedEvent.Reason reason = null;
+
+            if (activity.state() == GameState.FINISHED) {
+                if (idleNanos > finishedTtlNanos) reason = GameRemovedEvent.Reason.FINISHED_TTL;
+            }
+            else if (activity.state() == GameState.WAITING_FOR_PLAYERS) {
+                if (idleNanos > lobbyTtlNanos) reason = GameRemovedEvent.Reason.LOBBY_TTL;
+            }
+            else if (idleNanos > idleTtlNanos) {
+                reason = GameRemovedEvent.Reason.IDLE_TTL;
+            }
+            else if (trackConnections && idleNanos > disconnectGraceNanos && !connectedGames.contains(activity.gameId())) {
+                reason = GameRemovedEvent.Reason.DISCONNECTED;
+            }
+
+            if (reason != null && gameService.removeGame(activity.gameId(), reason)) evicted++;
+        }
+        if (evicted > 0) logger.info("Evicted {} game(s), {} still live", evicted, gameService.numLiveGames());
+    }
+
+    private Set<String> gamesWithConnectedPlayers() {
+        Set<String> result = new HashSet<>();
+        for (String playerId : connectedPlayers.keySet()) {
+            gameService.findGameIdForPlayer(playerId).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @EventListener
+    public void handleSessionConnected(SessionConnectedEvent event) {
+        Principal user = event.getUser();
+        if (user != null) connectedPlayers.merge(user.getName(), 1, Integer::sum);
+    }
+
+    @EventListener
+    public void handleSessionDisconnect(SessionDisconnectEvent event) {
+        Principal user = event.getUser();
+        if (user != null) connectedPlayers.computeIfPresent(user.getName(), (id, sessions) -> (sessions > 1) ? sessions - 1 : null);
+    }
+
+    @EventListener
+    public void handleGameRemovedEvent(GameRemovedEvent event) {
+        evictions.get(event.getReason()).increment();
+    }
+}
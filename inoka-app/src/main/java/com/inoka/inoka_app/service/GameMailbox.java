@@ -0,0 +1,108 @@
+package com.inoka.inoka_app.service;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.inoka.inoka_app.model.Game;
+import com.inoka.inoka_app.model.GameState;
+
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * Single writer for one Game.
+ * Commands are applied in submission order by at most one thread at a time,
+ * so Game objects are never touched concurrently and never need a lock.
+ * A drain task is only scheduled while the mailbox has pending commands.
+ */
+class GameMailbox {
+    private static final Logger logger = LoggerFactory.getLogger(GameMailbox.class);
+
+    private final Game game;
+    private final Executor executor;
+    private final Queue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    // Shared by every mailbox, records how long commands wait behind others for the same game
+    private final Timer waitTimer;
+    // Latest serialized view of the game, replaced once the game's version moves past it
+    private volatile GameSnapshot snapshot;
+    // State and System.nanoTime() as of the last command that changed the game
+    // Read by the lifecycle sweep without entering the mailbox
+    private volatile GameState lastState;
+    private volatile long lastChangeNanos;
+
+    GameMailbox(Game game, Executor executor, Timer waitTimer) {
+        this.game = game;
+        this.executor = executor;
+        this.waitTimer = waitTimer;
+        this.lastState = game.getState();
+        this.lastChangeNanos = System.nanoTime();
+    }
+
+    Game getGame() {
+        return game;
+    }
+
+    GameSnapshot getSnapshot() {
+        return snapshot;
+    }
+    void setSnapshot(GameSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    // Called from within a command that changed the game
+    void recordChange() {
+        this.lastState = game.getState();
+        this.lastChangeNanos = System.nanoTime();
+    }
+    GameActivity getActivity() {
+        return new GameActivity(game.getId(), lastState, lastChangeNanos);
+    }
+    long getLastChangeNanos() {
+        return lastChangeNanos;
+    }
+
+    /*
+     * Queues a command against the game
+     * The returned future completes with the command's result once it has been applied
+     */
+    <T> CompletableFuture<T> submit(Function<Game, T> command) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long queuedAt = System.nanoTime();
+        commands.add(() -> {
+            waitTimer.record(System.nanoTime() - queuedAt, TimeUnit.NANOSECONDS);
+            try {
+                future.complete(command.apply(game));
+            }
+            catch (Throwable t) {
+                logger.warn("Command failed for game {}", game.getId(), t);
+                future.completeExceptionally(t);
+            }
+        });
+        this.scheduleDrain();
+        return future;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            command.run();
+        }
+        draining.set(false);
+        // A command may have been queued after the last poll but before the flag was cleared
+        if (!commands.isEmpty()) this.scheduleDrain();
+    }
+}
@@ -0,0 +1,102 @@
+package com.inoka.inoka_app.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.inoka.inoka_app.model.GameState;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * Meters for GameService and its mailboxes.
+ * Timers are looked up once and cached, so recording on the command path is a map read and an array read.
+ * Gauges are computed when scraped, from state the mailboxes already publish for the lifecycle sweep.
+ */
+class GameMetrics {
+    private static final GameState[] STATES = GameState.values();
+    // Live game counts by state are recounted at most this often, however often the registry is scraped
+    private static final long RECOUNT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MeterRegistry meterRegistry;
+    // Operation --> Timer per (from state, to state), created on first use
+    private final ConcurrentHashMap<String, AtomicReferenceArray<Timer>> commandTimers = new ConcurrentHashMap<>();
+    // Time a command waits in a game's mailbox before it runs, the mailbox's equivalent of lock wait
+    private final Timer mailboxWait;
+    private final Timer snapshotBuild;
+
+    private Collection<GameMailbox> mailboxes;
+    private int[] stateCounts = new int[STATES.length];
+    private long countedAt;
+
+    GameMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.mailboxWait = Timer.builder("inoka.game.mailbox.wait")
+            .description("Time a command waits in its game's mailbox before running")
+            .publishPercentileHistogram()
+            .register(meterRegistry);
+        this.snapshotBuild = Timer.builder("inoka.game.snapshot.build")
+            .description("Time to convert a game to a JSON tree for a new version")
+            .register(meterRegistry);
+    }
+
+    /*
+     * Registers gauges over the live registry
+     * Both collections are read without copying, they must be live views
+     */
+    void bindGames(Collection<GameMailbox> mailboxes, Map<String, String> playerGames) {
+        this.mailboxes = mailboxes;
+        for (GameState state : STATES) {
+            Gauge.builder("inoka.games.live", this, metrics -> metrics.liveGames(state))
+                .description("Games held in memory")
+                .tag("state", state.name())
+                .register(meterRegistry);
+        }
+        Gauge.builder("inoka.games.players", playerGames, Map::size)
+            .description("Players seated in a live game")
+            .register(meterRegistry);
+    }
+
+    Timer mailboxWait() {
+        return mailboxWait;
+    }
+
+    void recordSnapshotBuild(long nanos) {
+        snapshotBuild.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordCommand(String operation, GameState from, GameState to, long nanos) {
+        AtomicReferenceArray<Timer> timers = commandTimers.get(operation);
+        if (timers == null) {
+            timers = commandTimers.computeIfAbsent(operation, op -> new AtomicReferenceArray<>(STATES.length * STATES.length));
+        }
+        int index = from.ordinal() * STATES.length + to.ordinal();
+        Timer timer = timers.get(index);
+        if (timer == null) {
+            // Registering the same id twice returns the same timer, so losing this race is harmless
+            timer = Timer.builder("inoka.game.command")
+                .description("Time to apply a GameService command inside the game's mailbox")
+                .tag("operation", operation)
+                .tag("from", from.name())
+                .tag("to", to.name())
+                .register(meterRegistry);
+            timers.set(index, timer);
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    private synchronized double liveGames(GameState state) {
+        long now = System.nanoTime();
+        if (countedAt == 0 || now - countedAt > RECOUNT_INTERVAL_NANOS) {
+            int[] counts = new int[STATES.length];
+            for (GameMailbox mailbox : mailboxes) counts[mailbox.getActivity().state().ordinal()]++;
+            stateCounts = counts;
+            countedAt = now;
+        }
+        return stateCounts[state.ordinal()];
+    }
+}
@@ -1,158 +1,493 @@
 package com.inoka.inoka_app.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.inoka.inoka_app.event.GameRemovedEvent;
 import com.inoka.inoka_app.event.GameUpdateEvent;
 import com.inoka.inoka_app.model.Player;
 import com.inoka.inoka_app.model.Action;
 import com.inoka.inoka_app.model.Card;
-import com.inoka.inoka_app.model.CardStyle;
 import com.inoka.inoka_app.model.Game;
+import com.inoka.inoka_app.model.GameRandom;
 import com.inoka.inoka_app.model.GameState;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.List;
+import java.util.UUID;
 
 @Service
 public class GameService {
+    // What createGame does when a new game is needed but the live game cap is reached
+    public enum OverflowPolicy {
+        // Refuse to create the game
+        REJECT,
+        // Evict the game that has gone longest without a change
+        EVICT_IDLEST
+    }
+
+    private static final Logger logger = LoggerFactory.getLogger(GameService.class);
+
     // Repo containing player data (name, id, gameid)
     private final PlayerService playerService;
+    // Every state-changing command is appended here, and replayed on startup
+    private final GameJournal journal;
+    // Picks ids for new games that route back to this node
+    private final ShardRouter shardRouter;
 
     private final ApplicationEventPublisher eventPublisher;
-    // Transient game data stored in HashMap
-    private final ConcurrentHashMap<String, Game> games = new ConcurrentHashMap<>();;
-
-    public GameService(PlayerService playerService, ApplicationEventPublisher eventPublisher) {
+    private final ObjectMapper objectMapper;
+    // Transient game data stored in HashMap, each game wrapped in its own mailbox
+    private final ConcurrentHashMap<String, GameMailbox> games = new ConcurrentHashMap<>();
+    // Player UUID --> Game UUID for every player seated in a live game
+    // Authoritative for in-game actions, so they never need a database lookup
+    private final ConcurrentHashMap<String, String> playerGames = new ConcurrentHashMap<>();
+    // Games still accepting players, by passcode
+    private final LobbyIndex lobbyIndex = new LobbyIndex();
+    // Mailboxes are drained on virtual threads, one at a time per game
+    private final ExecutorService commandExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    // Upper bound on games held in memory
+    private final int maxLiveGames;
+    private final OverflowPolicy overflowPolicy;
+    private final GameMetrics metrics;
+    // Set while games are rebuilt from the journal, no events go out until it is cleared
+    private volatile boolean recovering;
+
+    public GameService(
+        PlayerService playerService,
+        GameJournal journal,
+        ShardRouter shardRouter,
+        ApplicationEventPublisher eventPublisher,
+        ObjectMapper objectMapper,
+        MeterRegistry meterRegistry,
+        @Value("${inoka.games.max-live:50000}") int maxLiveGames,
+        @Value("${inoka.games.overflow-policy:REJECT}") OverflowPolicy overflowPolicy
+    ) {
         this.playerService = playerService;
+        this.journal = journal;
+        this.shardRouter = shardRouter;
         this.eventPublisher = eventPublisher;
+        this.objectMapper = objectMapper;
+        this.maxLiveGames = maxLiveGames;
+        this.overflowPolicy = overflowPolicy;
+        this.metrics = new GameMetrics(meterRegistry);
+        this.metrics.bindGames(games.values(), playerGames);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        commandExecutor.shutdown();
+    }
+
+    /*
+     * Rebuilds the games of previous runs: those in the last checkpoint as they were,
+     * then the journal replayed on top through the same commands that built them
+     * Records already reflected in the checkpoint are skipped
+     * Runs before the service is handed to anyone, so nothing else touches the games meanwhile
+     */
+    void recover(List<CheckpointedGame> checkpointed, long checkpointLsn) {
+        // Game UUID --> Lsn of the last record its checkpoint reflects
+        Map<String, Long> checkpointedUpTo = new HashMap<>();
+        recovering = true;
+        try {
+            for (CheckpointedGame entry : checkpointed) {
+                Game game = entry.game();
+                this.addGame(game);
+                for (String playerId : game.getPlayers().keySet()) playerGames.put(playerId, game.getId());
+                checkpointedUpTo.put(game.getId(), entry.lsn());
+            }
+            int replayed = journal.replay((record, lsn) -> {
+                if (lsn <= checkpointLsn) return;
+                Long upTo = checkpointedUpTo.get(record.gameId());
+                if (upTo == null || lsn > upTo) this.replay(record);
+            });
+            for (Game game : this.getAllGames()) {
+                if (game.getState() != GameState.WAITING_FOR_PLAYERS) continue;
+                // Lobbies are rebuilt from their final state rather than seat by seat
+                if (game.numPlayers() == 0 || !lobbyIndex.restore(game)) this.removeGame(game.getId());
+            }
+            if (!games.isEmpty()) logger.info("Recovered {} game(s) from {} checkpointed game(s) & {} journal record(s)", games.size(), checkpointed.size(), replayed);
+        }
+        finally {
+            recovering = false;
+        }
+    }
+
+    private void replay(JournalRecord record) {
+        String gameId = record.gameId();
+        String playerId = record.playerId();
+        switch (record.type()) {
+            // Already restored if its checkpoint was taken between the game being added & journaled
+            case CREATED -> {
+                if (!this.gameWithIdExists(gameId)) this.addGame(new Game(gameId, record.arg(), record.value()));
+            }
+            case JOINED -> {
+                // The journal only keeps the name, the stored row is used if it still exists
+                Player player = playerService.findPlayerById(playerId).orElseGet(() -> new Player(playerId, record.arg()));
+                this.addPlayerToGame(gameId, player).join();
+            }
+            case LEFT -> this.removePlayerFromGame(playerId).join();
+            case READY -> this.setPlayerReady(playerId).join();
+            case GAME_STARTED -> this.setGameStart(gameId).join();
+            case CLASH_STARTED -> this.setClashStart(gameId).join();
+            case NEW_CLASH -> this.startNewClash(gameId).join();
+            case TURN_ENDED -> this.setClashFinishedProcessing(gameId).join();
+            case CARD_PLAYED -> this.putCardInPlay(playerId, record.arg()).join();
+            case INITIATIVE_ROLLED -> this.rollInitForPlayer(playerId).join();
+            case DAMAGE_DEALT -> this.resolveClashAction(playerId, record.arg()).join();
+            case CARD_REMOVED -> this.removePlayerCardInPlay(playerId).join();
+            case TOTEM_PICKED_UP -> this.playerPickUpKnockout(playerId).join();
+            case FORFEITED -> this.playerForfeitClash(playerId).join();
+            case CLASH_WON -> this.playerWonClash(playerId).join();
+            case REMOVED -> this.removeGame(gameId);
+        }
     }
-    
-    
-    private void publishGameUpdate(String gameId) {
-        Game game = games.get(gameId);
-        if (game != null) {
-            eventPublisher.publishEvent(new GameUpdateEvent(this, game));
+
+    // Must be called from within a game command, after the change the record describes
+    private void publishGameUpdate(Game game, JournalRecord record) {
+        journal.append(record);
+        game.bumpVersion();
+        if (!recovering) eventPublisher.publishEvent(new GameUpdateEvent(this, game));
+    }
+
+    /*
+     * Submits a command to the game's mailbox, timed under the operation's name & the state change it made
+     * Completes with Optional.empty() if the game does not exist
+     */
+    private <T> CompletableFuture<Optional<T>> submit(String operation, String gameId, Function<Game, T> command) {
+        GameMailbox mailbox = (gameId != null) ? games.get(gameId) : null;
+        if (mailbox == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
         }
+        return mailbox.submit(game -> {
+            long version = game.getVersion();
+            GameState from = game.getState();
+            long start = System.nanoTime();
+            T result = command.apply(game);
+            metrics.recordCommand(operation, from, game.getState(), System.nanoTime() - start);
+            if (game.getVersion() != version) mailbox.recordChange();
+            return Optional.ofNullable(result);
+        });
     }
-    
+
+    /*
+     * Submits a command on behalf of a player to the game they are in
+     * Completes with Optional.empty() if the player is not in a game
+     */
+    private <T> CompletableFuture<Optional<T>> submitForPlayer(String operation, String playerId, Function<Game, T> command) {
+        return this.submit(operation, this.playerGames.get(playerId), command);
+    }
+
     public void addGame(Game game) {
-        games.put(game.getId(), game);
+        games.put(game.getId(), new GameMailbox(game, commandExecutor, metrics.mailboxWait()));
     }
-    
+
     public void removeGame(String id) {
-        games.remove(id);
+        this.removeGame(id, GameRemovedEvent.Reason.REMOVED);
+    }
+
+    /*
+     * Removes a game from memory, clearing its lobby and player index entries
+     * and the stored game id of every player still in it
+     * Returns false if the game was already gone
+     */
+    public boolean removeGame(String id, GameRemovedEvent.Reason reason) {
+        lobbyIndex.close(id);
+        GameMailbox mailbox = games.remove(id);
+        if (mailbox == null) return false;
+        // Queued behind any pending commands so late joiners are cleared as well
+        mailbox.submit(game -> {
+            for (Player player : game.getPlayers().values()) {
+                // Skipped if the player has moved on to another game meanwhile
+                if (!playerGames.remove(player.getId(), id)) continue;
+                player.clearGameId();
+                // As in removePlayerFromGame, bots have no stored row
+                if (!player.isBot()) this.playerService.queueGameIdUpdate(player);
+            }
+            // Journaled from the mailbox, so a checkpoint of the game taken before this still gets the removal replayed
+            journal.append(JournalRecord.ofGame(JournalRecord.Type.REMOVED, id));
+            return null;
+        });
+        if (!recovering) eventPublisher.publishEvent(new GameRemovedEvent(this, id, reason));
+        return true;
     }
-    
+
+    public int numLiveGames() {
+        return games.size();
+    }
+
+    // Last recorded state & change time of every live game, read without entering their mailboxes
+    public List<GameActivity> getGameActivity() {
+        List<GameActivity> result = new ArrayList<>(games.size());
+        for (GameMailbox mailbox : games.values()) result.add(mailbox.getActivity());
+        return result;
+    }
+
+    /*
+     * Applies the overflow policy when a new game would exceed the live game cap
+     * Returns true if the new game may be created
+     */
+    private boolean admitNewGame() {
+        if (games.size() < maxLiveGames) return true;
+        if (overflowPolicy == OverflowPolicy.REJECT) return false;
+
+        // Only runs at the cap, so a scan is cheaper than keeping the registry ordered by idleness
+        GameMailbox idlest = null;
+        for (GameMailbox mailbox : games.values()) {
+            if (idlest == null || mailbox.getLastChangeNanos() < idlest.getLastChangeNanos()) idlest = mailbox;
+        }
+        if (idlest != null) this.removeGame(idlest.getGame().getId(), GameRemovedEvent.Reason.OVERFLOW);
+        return true;
+    }
+
+    /*
+     * Applies the capture to every game that has not finished, each from within its own mailbox,
+     * along with the journal's last lsn at that point, which covers every record of the game applied so far
+     * Games removed before their turn comes are skipped
+     */
+    <T> CompletableFuture<List<T>> captureGames(BiFunction<Game, Long, T> capture) {
+        List<CompletableFuture<T>> captures = new ArrayList<>(games.size());
+        for (GameMailbox mailbox : games.values()) {
+            captures.add(mailbox.submit(game -> {
+                if (game.getState() == GameState.FINISHED || games.get(game.getId()) != mailbox) return null;
+                return capture.apply(game, journal.lastLsn());
+            }));
+        }
+        return CompletableFuture.allOf(captures.toArray(CompletableFuture[]::new)).thenApply(done -> {
+            List<T> result = new ArrayList<>(captures.size());
+            for (CompletableFuture<T> future : captures) {
+                T captured = future.join();
+                if (captured != null) result.add(captured);
+            }
+            return result;
+        });
+    }
+
     public List<Game> getAllGames() {
-        return new ArrayList<>(games.values());
+        List<Game> result = new ArrayList<>(games.size());
+        for (GameMailbox mailbox : games.values()) result.add(mailbox.getGame());
+        return result;
     }
 
     public Optional<Game> getGameById(String gameId) {
-        return Optional.ofNullable(this.games.get(gameId));
+        GameMailbox mailbox = (gameId != null) ? this.games.get(gameId) : null;
+        return Optional.ofNullable(mailbox).map(GameMailbox::getGame);
     }
 
     public boolean gameWithIdExists(String gameId) {
-        return this.games.contains(gameId);
+        return this.games.containsKey(gameId);
     }
 
-    public Optional<List<Card>> getPlayerDeck(String playerId) {
-        Optional<Player> playerCheck = playerService.findPlayerById(playerId);
-        if (!playerCheck.isPresent()) {
-            return Optional.empty();
-        }
-        Player playerTransient = playerCheck.get();
-        String gameId = playerTransient.getGameId();
-        if ((gameId.equals("Not in game")) || (gameId == null) || (gameId.isEmpty())) {
-            return Optional.empty();
+    /*
+     * Given the UUID of a game,
+     * Return its serialized form at the current version
+     * The game is serialized at most once per version, all callers share the result
+     */
+    public CompletableFuture<Optional<GameSnapshot>> getSnapshot(String gameId) {
+        GameMailbox mailbox = (gameId != null) ? games.get(gameId) : null;
+        if (mailbox == null) {
+            return CompletableFuture.completedFuture(Optional.empty());
         }
-        // Now we know the player is in a game, so we find the game in the game map
-        Game game = games.get(gameId);
-        // Now we access the player's deck through the game, which is holding its value in memory
-        Player player = game.getPlayers().get(playerId);
-        if (player != null) {
-            return Optional.of(player.getDeck());
+        GameSnapshot cached = mailbox.getSnapshot();
+        if (cached != null && cached.getVersion() == mailbox.getGame().getVersion()) {
+            return CompletableFuture.completedFuture(Optional.of(cached));
         }
-        return Optional.empty();
+        return mailbox.submit(game -> {
+            GameSnapshot snapshot = mailbox.getSnapshot();
+            if (snapshot == null || snapshot.getVersion() != game.getVersion()) {
+                long start = System.nanoTime();
+                ObjectNode tree = objectMapper.valueToTree(game);
+                metrics.recordSnapshotBuild(System.nanoTime() - start);
+                snapshot = new GameSnapshot(game.getId(), game.getVersion(), tree, objectMapper);
+                mailbox.setSnapshot(snapshot);
+            }
+            return Optional.of(snapshot);
+        });
     }
-    
+
+    // Returns the UUID of the game the player is seated in, if any
+    public Optional<String> findGameIdForPlayer(String playerId) {
+        return Optional.ofNullable(this.playerGames.get(playerId));
+    }
+
+    /*
+     * Given the UUID of a player,
+     * Return the node their game lives on: this node if they are seated here, otherwise whichever node reports them
+     * Empty if they are not seated in any game
+     */
+    public Optional<String> findPlayerNode(String playerId) {
+        return this.findPlayerNodeAsync(playerId).join();
+    }
+
+    // As findPlayerNode(), without waiting on the other nodes
+    public CompletableFuture<Optional<String>> findPlayerNodeAsync(String playerId) {
+        if (playerId == null) return CompletableFuture.completedFuture(Optional.empty());
+        if (this.playerGames.containsKey(playerId)) return CompletableFuture.completedFuture(Optional.of(shardRouter.getSelf()));
+        return shardRouter.locatePlayerGameAsync(playerId).thenApply(gameId -> gameId.map(shardRouter::ownerOfGame));
+    }
+
+    public CompletableFuture<Optional<List<Card>>> getPlayerDeck(String playerId) {
+        // The player's deck is held in memory by the game they are in
+        return this.submitForPlayer("getPlayerDeck", playerId, game -> {
+            Player player = game.getPlayers().get(playerId);
+            return (player != null) ? player.getDeck() : null;
+        });
+    }
+
     /*
      * Creates or joins existing game
      */
-    public synchronized Game createGame(String passcode, Player player) {
+    public CompletableFuture<Game> createGame(String passcode, Player player) {
         // Check if player can join existing game
-        // Can also use .orElseGet() for more succinct code but I think this is a little more readable
-        Optional<Game> gameCheck = this.joinGame(passcode, player);
-        if (gameCheck.isPresent()) return gameCheck.get();
-
-        // If no suitable game was found, create a new game with the given passcode
-        Game game = (passcode != null && !passcode.isEmpty()) ? new Game(passcode) : new Game();
-        games.put(game.getId(), game);
-        this.addPlayerToGame(game.getId(), player);
-        return game;
+        return this.joinGame(passcode, player).thenCompose(gameCheck -> {
+            if (gameCheck.isPresent()) return CompletableFuture.completedFuture(gameCheck.get());
+
+            // If no suitable game was found, create a new game with the given passcode
+            if (!this.admitNewGame()) return CompletableFuture.completedFuture(null);
+            Game game = new Game(shardRouter.newGameId(), LobbyIndex.isPublic(passcode) ? "" : passcode, GameRandom.newSeed());
+            this.addGame(game);
+            /*
+             * Journaled from the game's mailbox, once the game is registered & before its lobby opens:
+             * a checkpoint either captures the game or reads its lsn before CREATED is appended,
+             * and every other record of the game is queued behind it
+             */
+            return this.submit("createGame", game.getId(), created -> {
+                this.journal.append(JournalRecord.created(created.getId(), created.getPasscode(), created.getSeed()));
+                return true;
+            }).thenCompose(journaled -> {
+                // Evicted before it was journaled
+                if (journaled.isEmpty()) return this.createGame(passcode, player);
+                if (!this.lobbyIndex.open(game)) {
+                    // Another lobby with the same passcode opened first, retry joining that one
+                    // Removing the game journals its REMOVED record
+                    this.removeGame(game.getId());
+                    return this.createGame(passcode, player);
+                }
+                return this.addPlayerToGame(game.getId(), player).thenCompose(added -> {
+                    if (added) return CompletableFuture.completedFuture(game);
+                    this.removeGame(game.getId());
+                    return this.createGame(passcode, player);
+                });
+            });
+        });
     }
-    
+
     /*
      * Joins game if game exists & game.numPlayers() < 6
+     * Open lobbies are looked up through the lobby index rather than scanning every game
      */
-    public synchronized Optional<Game> joinGame(String passcode, Player player) {
-        // Checks if player can join existing game
-        for (Game game : games.values()) {
-            if (passcode == null || passcode.isEmpty()) {
-                // No passcode
-                if ((game.getPasscode() == null || game.getPasscode().isEmpty()) &&
-                    (game.getState() == GameState.WAITING_FOR_PLAYERS) &&
-                    (game.numPlayers() < 6)) {
-                    // Add the player to the existing game
-                    this.addPlayerToGame(game.getId(), player);
-                    return Optional.of(game);
-                }
-            }
-            else {
-                // passcode
-                if ((game.getPasscode() != null && game.getPasscode().equals(passcode)) &&
-                    (game.getState() == GameState.WAITING_FOR_PLAYERS) &&
-                    (game.numPlayers() < 6)) {
-                    this.addPlayerToGame(game.getId(), player);
-                    return Optional.of(game);
-                }
-            }
+    public CompletableFuture<Optional<Game>> joinGame(String passcode, Player player) {
+        Optional<Game> lobby = this.lobbyIndex.claimSeat(passcode);
+        if (lobby.isEmpty()) {
+            return CompletableFuture.completedFuture(Optional.empty());
         }
-        return Optional.empty();
+        Game lobbyGame = lobby.get();
+        return this.addPlayerToGame(lobbyGame.getId(), player).thenCompose(added -> {
+            if (added) return CompletableFuture.completedFuture(lobby);
+            // Game started or was removed after the seat was claimed, try the next lobby
+            this.lobbyIndex.releaseSeat(lobbyGame);
+            return this.joinGame(passcode, player);
+        });
     }
 
     /*
      * Handles adding player to game object
+     * Completes with false if the game is no longer accepting players
      */
-    public void addPlayerToGame(String gameId, Player player) {
-        games.computeIfPresent(gameId, (id, game) -> {
-            synchronized (game) {
-                game.addPlayer(player);
-                this.playerService.savePlayer(player);
-                this.publishGameUpdate(gameId);
-                return game;
+    public CompletableFuture<Boolean> addPlayerToGame(String gameId, Player player) {
+        return this.submit("addPlayerToGame", gameId, game -> {
+            if (game.getState() != GameState.WAITING_FOR_PLAYERS || game.numPlayers() >= LobbyIndex.MAX_PLAYERS) {
+                return false;
             }
-        });
+            game.addPlayer(player);
+            this.playerGames.put(player.getId(), game.getId());
+            // Bots have no stored row
+            if (!player.isBot()) this.playerService.queueGameIdUpdate(player);
+            this.publishGameUpdate(game, JournalRecord.ofPlayer(JournalRecord.Type.JOINED, gameId, player.getId(), player.getName()));
+            return true;
+        }).thenApply(result -> result.orElse(false));
     }
 
     /*
-     * Given the UUID of a game,
-     * Return a List of players in game
+     * Given the UUID of a public lobby with at least one human waiting in it,
+     * seat bots through the lobby index until it holds tableSize players
+     * Completes with the number of bots seated
      */
-    public Optional<List<Player>> getPlayersInGame(String gameId) {
-        // Mutable object you can modify inside lambda expression
-        final List<Optional<List<Player>>> result = new ArrayList<>(1);
-        result.add(Optional.empty());
-        games.computeIfPresent(gameId, (id, game) -> {
-            synchronized (game) {
-                result.set(0, Optional.of(new ArrayList<>(game.getPlayers().values())));
-                return game;
+    public CompletableFuture<Integer> seatBots(String gameId, int tableSize) {
+        return this.submit("seatBots", gameId, game -> {
+            if (game.getState() != GameState.WAITING_FOR_PLAYERS || !LobbyIndex.isPublic(game.getPasscode())) return 0;
+            boolean humanWaiting = false;
+            for (Player player : game.getPlayers().values()) humanWaiting |= !player.isBot();
+            if (!humanWaiting) return 0;
+
+            int seated = 0;
+            while (game.numPlayers() < Math.min(tableSize, LobbyIndex.MAX_PLAYERS) && this.lobbyIndex.claimSeatIn(gameId)) {
+                Player bot = new Player(Player.BOT_ID_PREFIX + UUID.randomUUID(), "Bot " + (game.numPlayers() + 1));
+                game.addPlayer(bot);
+                this.playerGames.put(bot.getId(), gameId);
+                this.publishGameUpdate(game, JournalRecord.ofPlayer(JournalRecord.Type.JOINED, gameId, bot.getId(), bot.getName()));
+                seated++;
             }
-        });
+            return seated;
+        }).thenApply(result -> result.orElse(0));
+    }
 
-        return result.get(0);
+    /*
+     * Runs a read-only look at a game from within its mailbox, e.g. for bots deciding their next move
+     * Completes with Optional.empty() if the game does not exist
+     */
+    <T> CompletableFuture<Optional<T>> inspect(String gameId, Function<Game, T> inspection) {
+        return this.submit("inspect", gameId, inspection);
+    }
+
+    /*
+     * Given a player's UUID,
+     * remove them from the game they are in
+     * The game is removed once its last player leaves
+     * Returns true if the player was in a game
+     */
+    public CompletableFuture<Boolean> removePlayerFromGame(String playerId) {
+        return this.submitForPlayer("removePlayerFromGame", playerId, game -> {
+            Player player = game.removePlayer(playerId);
+            if (player == null) return false;
+            playerGames.remove(playerId, game.getId());
+            if (game.getState() == GameState.WAITING_FOR_PLAYERS) this.lobbyIndex.releaseSeat(game);
+            player.clearGameId();
+            if (!player.isBot()) this.playerService.queueGameIdUpdate(player);
+
+            if (game.numPlayers() == 0) {
+                this.removeGame(game.getId(), GameRemovedEvent.Reason.EMPTY);
+            }
+            else {
+                this.publishGameUpdate(game, JournalRecord.ofPlayer(JournalRecord.Type.LEFT, game.getId(), playerId));
+            }
+            return true;
+        }).thenApply(result -> result.orElse(false));
+    }
+
+    /*
+     * Given the UUID of a game,
+     * Return a List of players in game
+     */
+    public CompletableFuture<Optional<List<Player>>> getPlayersInGame(String gameId) {
+        return this.submit("getPlayersInGame", gameId, game -> new ArrayList<>(game.getPlayers().values()));
     }
 
     /*
@@ -161,25 +496,15 @@ public class GameService {
      * Returns true if success
      * else false
      */
-    public boolean setPlayerReady(String playerId) {
-        Optional<Player> playerCheck = this.playerService.findPlayerById(playerId);
-        if (playerCheck.isPresent()) {
-            Player player = playerCheck.get();
+    public CompletableFuture<Boolean> setPlayerReady(String playerId) {
+        return this.submitForPlayer("setPlayerReady", playerId, game -> {
             // Set player ready in transient Game data
-            String gameId = player.getGameId();
-            
-            games.computeIfPresent(gameId, (id, game) -> {
-                synchronized (game) {
-                    Player playerTransient = game.getPlayer(player.getId());
-                    playerTransient.setReady(true);
-                    this.publishGameUpdate(gameId);
-                    return game;
-                }
-            });
-            return games.get(gameId).getPlayer(playerId).isReady();
-        } else {
-            return false;
-        }
+            Player playerTransient = game.getPlayer(playerId);
+            if (playerTransient == null) return false;
+            playerTransient.setReady(true);
+            this.publishGameUpdate(game, JournalRecord.ofPlayer(JournalRecord.Type.READY, game.getId(), playerId));
+            return true;
+        }).thenApply(result -> result.orElse(false));
     }
 
     /*
@@ -189,16 +514,13 @@ public class GameService {
      * Returns true if all players in game are ready
      * Returns false otherwise
      */
-    public Optional<Boolean> allPlayersReady(String gameId) {
-        Optional<List<Player>> playersCheck = this.getPlayersInGame(gameId);
-
-        if (playersCheck.isEmpty()) {
-            return Optional.empty();
-        }
-
-        for (Player player : playersCheck.get()) if(!player.isReady()) return Optional.of(false);
+    public CompletableFuture<Optional<Boolean>> allPlayersReady(String gameId) {
+        return this.submit("allPlayersReady", gameId, GameService::allPlayersReady);
+    }
 
-        return Optional.of(true);
+    private static boolean allPlayersReady(Game game) {
+        for (Player player : game.getPlayers().values()) if(!player.isReady()) return false;
+        return true;
     }
 
     /*
@@ -206,160 +528,111 @@ public class GameService {
      * set the GameState to DRAWING_CARDS
      * and queue broadcast
      */
-    public boolean setGameStart(String gameId) {
-        final List<Boolean> result = new ArrayList<>(1);
-        result.add(false);
-        games.computeIfPresent(gameId, (id, game) -> {
-            synchronized (game) {
-                if (game.getState() == GameState.WAITING_FOR_PLAYERS && this.allPlayersReady(gameId).get()) {
-                    game.setState(GameState.DRAWING_CARDS);
-                    result.set(0, true);
-                    this.publishGameUpdate(gameId);
-                }
-                return game;
+    public CompletableFuture<Boolean> setGameStart(String gameId) {
+        return this.submit("setGameStart", gameId, game -> {
+            if (game.getState() == GameState.WAITING_FOR_PLAYERS && allPlayersReady(game)) {
+                game.setState(GameState.DRAWING_CARDS);
+                // Game no longer accepts players once it starts
+                this.lobbyIndex.close(gameId);
+                this.publishGameUpdate(game, JournalRecord.ofGame(JournalRecord.Type.GAME_STARTED, gameId));
+                return true;
             }
-        });
-        return result.get(0);
-    }
-
-    public boolean setClashStart(String gameId) {
-        final List<Boolean> result = new ArrayList<>(1);
-        result.add(false);
-        games.computeIfPresent(gameId, (id, game) -> {
-            synchronized (game) {
-                if (game.getState() == GameState.COUNT_DOWN) {
-                        game.setState(GameState.CLASH_ROLL_INIT);
-                        // Initiative values are re-rolled at start of clash
-                        game.resetInitiativeValue();
-                        result.set(0, true);
-                        this.publishGameUpdate(gameId);
-                    }
-                return game;
+            return false;
+        }).thenApply(result -> result.orElse(false));
+    }
+
+    public CompletableFuture<Boolean> setClashStart(String gameId) {
+        return this.submit("setClashStart", gameId, game -> {
+            if (game.getState() == GameState.COUNT_DOWN) {
+                game.setState(GameState.CLASH_ROLL_INIT);
+                // Initiative values are re-rolled at start of clash
+                game.resetInitiativeValue();
+                this.publishGameUpdate(game, JournalRecord.ofGame(JournalRecord.Type.CLASH_STARTED, gameId));
+                return true;
             }
-        });
-        return result.get(0);
-    }
-
-    public boolean startNewClash(String gameId) {
-        final List<Boolean> result = new ArrayList<>(1);
-        result.add(false);
-        games.computeIfPresent(gameId, (id, game) -> {
-            synchronized (game) {
-                if (game.getState() == GameState.CLASH_CONCLUDED) {
-                        game.setState(GameState.DRAWING_CARDS);
-                        // Remove cards from play
-                        game.removeAllCardsFromPlay();
-                        result.set(0, true);
-                        this.publishGameUpdate(gameId);
-                    }
-                return game;
+            return false;
+        }).thenApply(result -> result.orElse(false));
+    }
+
+    public CompletableFuture<Boolean> startNewClash(String gameId) {
+        return this.submit("startNewClash", gameId, game -> {
+            if (game.getState() == GameState.CLASH_CONCLUDED) {
+                game.setState(GameState.DRAWING_CARDS);
+                // Remove cards from play
+                game.removeAllCardsFromPlay();
+                this.publishGameUpdate(game, JournalRecord.ofGame(JournalRecord.Type.NEW_CLASH, gameId));
+                return true;
             }
-        });
-        return result.get(0);
+            return false;
+        }).thenApply(result -> result.orElse(false));
     }
 
-    public boolean setClashFinishedProcessing(String gameId) {
-        final List<Boolean> result = new ArrayList<>(1);
-        result.add(false);
-        games.computeIfPresent(gameId, (id, game) -> {
-            synchronized (game) {
-                if (game.getState() == GameState.CLASH_PROCESSING_DECISION) {
-                    game.setState(GameState.CLASH_PLAYER_TURN);
-                    // Move onto next player's turn
-                    game.determineNextInitiativeValue();
-                    result.set(0, true);
-                    this.publishGameUpdate(gameId);
-                }
-                return game;
+    public CompletableFuture<Boolean> setClashFinishedProcessing(String gameId) {
+        return this.submit("setClashFinishedProcessing", gameId, game -> {
+            if (game.getState() == GameState.CLASH_PROCESSING_DECISION) {
+                game.setState(GameState.CLASH_PLAYER_TURN);
+                // Move onto next player's turn
+                game.determineNextInitiativeValue();
+                this.publishGameUpdate(game, JournalRecord.ofGame(JournalRecord.Type.TURN_ENDED, gameId));
+                return true;
             }
-        });
-        return result.get(0);
+            return false;
+        }).thenApply(result -> result.orElse(false));
     }
 
     /*
-     * Given the UUID of a player and a Card object,
-     * Add the card to the Map of cards in play
+     * Given the UUID of a player and the id of a card in their deck,
+     * Move the card from their deck into play
      * in the game the player is in
      * Returns true if successful, false otherwise
      */
-    public boolean putCardInPlay(String playerId, Card card) {
-        Optional<Player> playerCheck = this.playerService.findPlayerById(playerId);
-        if (playerCheck.isPresent()) {
-            Player player = playerCheck.get();
-
-            String gameId = player.getGameId();
-            games.computeIfPresent(gameId, (id, game) -> {
-                synchronized (game) {
-                    Player playerTransient = game.getPlayer(player.getId());
-                    game.addCardInPlay(playerId, card);
-                    playerTransient.removeCardFromDeck(card);
-                    /*
-                     * If all players have put a card in play,
-                     * and game is currently in the DRAWING_CARDS state,
-                     * Set state to COUNT_DOWN
-                     */
-                    if (game.getState() == GameState.DRAWING_CARDS) {
-                        if (game.getCardsInPlay().size() == game.getPlayers().size()) {
-                            game.setState(GameState.COUNT_DOWN);
-                        }
-                    }
-                    /*
-                     * If a player's previous card got defeated in clash,
-                     * and they put another card in play,
-                     * update GameState from CLASH_PLAYER_REPLACING_CARD
-                     * to CLASH_PLAYER_TURN, updating initiative value
-                     */
-                    if (game.getState() == GameState.CLASH_PLAYER_REPLACING_CARD) {
-                        game.setState(GameState.CLASH_PLAYER_TURN);
-                        game.determineNextInitiativeValue();
-                    }
-                    this.publishGameUpdate(gameId);
-                    return game;
+    public CompletableFuture<Boolean> putCardInPlay(String playerId, String cardId) {
+        return this.submitForPlayer("putCardInPlay", playerId, game -> {
+            if (!game.playCardFromDeck(playerId, cardId)) return false;
+            /*
+             * If all players have put a card in play,
+             * and game is currently in the DRAWING_CARDS state,
+             * Set state to COUNT_DOWN
+             */
+            if (game.getState() == GameState.DRAWING_CARDS) {
+                if (game.numCardsInPlay() == game.getPlayers().size()) {
+                    game.setState(GameState.COUNT_DOWN);
                 }
-            });
+            }
+            /*
+             * If a player's previous card got defeated in clash,
+             * and they put another card in play,
+             * update GameState from CLASH_PLAYER_REPLACING_CARD
+             * to CLASH_PLAYER_TURN, updating initiative value
+             */
+            if (game.getState() == GameState.CLASH_PLAYER_REPLACING_CARD) {
+                game.setState(GameState.CLASH_PLAYER_TURN);
+                game.determineNextInitiativeValue();
+            }
+            this.publishGameUpdate(game, JournalRecord.ofPlayer(JournalRecord.Type.CARD_PLAYED, game.getId(), playerId, cardId));
             return true;
-        } else {
-            return false;
-        }
+        }).thenApply(result -> result.orElse(false));
     }
 
-    public int rollInitForPlayer(String playerId) {
-        Optional<Player> playerCheck = this.playerService.findPlayerById(playerId);
-        if (playerCheck.isPresent()) {
-            Player player = playerCheck.get();
-
-            String gameId = player.getGameId();
-            games.computeIfPresent(gameId, (id, game) -> {
-                synchronized (game) {
-                    // Players cannot share an existing initiative value
-                    do {
-                        Player playerTransient = game.getPlayer(player.getId());
-                        playerTransient.rollInitiative();
-                        Card playerCardInPlay = game.getPlayerCardInPlay(playerId);
-                        // Tricksters add their level to initiative when put in play
-                        if (playerCardInPlay != null && playerCardInPlay.getStyle() == CardStyle.TRICKSTER) {
-                            playerTransient.addToInitiative(playerCardInPlay.getLevel());
-                        }
-                        player.setInitiative(playerTransient.getInitiative());
-                    } while (!game.addPlayerInitiativeToMap(player));
-                    /*
-                     * If all players have rolled initiative,
-                     * and game is currently in CLASH_ROLL_INIT state,
-                     * set state to CLASH_PLAYER_TURN
-                     */
-                    if (game.getState() == GameState.CLASH_ROLL_INIT) {
-                        if (game.getInitiativeMap().size() == game.getPlayers().size()) {
-                            game.setState(GameState.CLASH_PLAYER_TURN);
-                            game.determineNextInitiativeValue();
-                        }
-                    }
-                    this.publishGameUpdate(gameId);
-                    return game;
+    public CompletableFuture<Integer> rollInitForPlayer(String playerId) {
+        return this.submitForPlayer("rollInitForPlayer", playerId, game -> {
+            // Players cannot share an existing initiative value
+            int initiative = game.rollPlayerInitiative(playerId);
+            if (initiative == -1) return -1;
+            /*
+             * If all players have rolled initiative,
+             * and game is currently in CLASH_ROLL_INIT state,
+             * set state to CLASH_PLAYER_TURN
+             */
+            if (game.getState() == GameState.CLASH_ROLL_INIT) {
+                if (game.numInitiatives() == game.getPlayers().size()) {
+                    game.setState(GameState.CLASH_PLAYER_TURN);
+                    game.determineNextInitiativeValue();
                 }
-            });
-            return player.getInitiative();
-        }
-        return -1;
+            }
+            this.publishGameUpdate(game, JournalRecord.ofPlayer(JournalRecord.Type.INITIATIVE_ROLLED, game.getId(), playerId));
+            return initiative;
+        }).thenApply(result -> result.orElse(-1));
     }
 
     /*
@@ -370,52 +643,28 @@ public class GameService {
      * returning how much damage was dealt,
      * or -1 if the player chose to skip their turn
      */
-    public int resolveClashAction(String dealingPlayerId, String receivingPlayerId) {
-        Optional<Player> playerCheck = this.playerService.findPlayerById(dealingPlayerId);
-        final List<Integer> result = new ArrayList<>(1);
-        result.add(-1);
-        if (playerCheck.isPresent()) {
-            Player player = playerCheck.get();
-
-            String gameId = player.getGameId();
-            games.computeIfPresent(gameId, (id, game) -> {
-                synchronized (game) {
-                    if (!receivingPlayerId.equals("null")) {
-                        int damage = game.dealDamage(dealingPlayerId, receivingPlayerId);
-                        result.set(0, damage);
-                    }
-                    game.setLastAction(dealingPlayerId, receivingPlayerId, result.get(0));
-                    game.setState(GameState.CLASH_PROCESSING_DECISION);
-                    this.publishGameUpdate(gameId);
-                    return game;
-                }
-            });
-        }
-        return result.get(0);
+    public CompletableFuture<Integer> resolveClashAction(String dealingPlayerId, String receivingPlayerId) {
+        return this.submitForPlayer("resolveClashAction", dealingPlayerId, game -> {
+            int damage = -1;
+            if (receivingPlayerId != null && !receivingPlayerId.equals("null")) {
+                damage = game.dealDamage(dealingPlayerId, receivingPlayerId);
+            }
+            game.setLastAction(dealingPlayerId, receivingPlayerId, damage);
+            game.setState(GameState.CLASH_PROCESSING_DECISION);
+            this.publishGameUpdate(game, JournalRecord.ofPlayer(JournalRecord.Type.DAMAGE_DEALT, game.getId(), dealingPlayerId, receivingPlayerId));
+            return damage;
+        }).thenApply(result -> result.orElse(-1));
     }
 
     // Remove player's card from play
-    public boolean removePlayerCardInPlay(String playerId) {
-        Optional<Player> playerCheck = this.playerService.findPlayerById(playerId);
-        final List<Boolean> result = new ArrayList<>(1);
-        result.add(false);
-        if (playerCheck.isPresent()) {
-            Player player = playerCheck.get();
-
-            String gameId = player.getGameId();
-            games.computeIfPresent(gameId, (id, game) -> {
-                synchronized (game) {
-                    Card removedCard = game.removeCardInPlay(playerId);
-                    if (removedCard != null) {
-                        result.set(0, true);
-                        if (game.getState() == GameState.CLASH_PROCESSING_DECISION) game.setState(GameState.CLASH_PLAYER_REPLACING_CARD);
-                        this.publishGameUpdate(gameId);
-                    }
-                    return game;
-                }
-            });
-        }
-        return result.get(0);
+    public CompletableFuture<Boolean> removePlayerCardInPlay(String playerId) {
+        return this.submitForPlayer("removePlayerCardInPlay", playerId, game -> {
+            Card removedCard = game.removeCardInPlay(playerId);
+            if (removedCard == null) return false;
+            if (game.getState() == GameState.CLASH_PROCESSING_DECISION) game.setState(GameState.CLASH_PLAYER_REPLACING_CARD);
+            this.publishGameUpdate(game, JournalRecord.ofPlayer(JournalRecord.Type.CARD_REMOVED, game.getId(), playerId));
+            return true;
+        }).thenApply(result -> result.orElse(false));
     }
 
     /*
@@ -423,45 +672,28 @@ public class GameService {
      * give them the totem & restore 1d12 hit points to their card
      * return true if successful, false otherwise
      */
-    public boolean playerPickUpKnockout(String playerId) {
-        Optional<Player> playerCheck = this.playerService.findPlayerById(playerId);
-        final List<Boolean> result = new ArrayList<>(1);
-        result.add(false);
-        if (playerCheck.isPresent()) {
-            Player player = playerCheck.get();
-
-            String gameId = player.getGameId();
-            games.computeIfPresent(gameId, (id, game) -> {
-                synchronized (game) {
-                    Player playerTransient = game.getPlayer(player.getId());
-                    Action lastAction = game.getLastAction();
-                    // Verify player took action this turn
-                    if (playerId.equals(lastAction.getDealingPlayerId())) {
-                        result.set(0, true);
-                        Card playerCard = game.getPlayerCardInPlay(playerId);
-                        if (playerCard.isHasTotem() && playerCard.getStyle() == CardStyle.ATTACKER) {
-                            // Player wins clash
-                            int sacredStones = playerTransient.giveSacredStone();
-                            if (sacredStones == 3) {
-                                // Player wins game
-                                game.setState(GameState.FINISHED);
-                            }
-                            else {
-                                game.setState(GameState.CLASH_CONCLUDED);
-                            }
-                            this.publishGameUpdate(gameId);
-                            return game;
-                        }
-                        // Otherwise, give player's card totem & heal
-                        game.resetCardsTotem(); // Only one player can have totem
-                        game.playerGiveTotem(playerId);
-                        this.publishGameUpdate(gameId);
-                    }
-                    return game;
+    public CompletableFuture<Boolean> playerPickUpKnockout(String playerId) {
+        return this.submitForPlayer("playerPickUpKnockout", playerId, game -> {
+            Player playerTransient = game.getPlayer(playerId);
+            Action lastAction = game.getLastAction();
+            // Verify player took action this turn
+            if (playerTransient == null || !playerId.equals(lastAction.getDealingPlayerId())) return false;
+
+            // An Attacker already holding the totem wins the clash, any other card takes the totem & heals
+            if (game.pickUpKnockout(playerId)) {
+                // Player wins clash
+                int sacredStones = playerTransient.giveSacredStone();
+                if (sacredStones == 3) {
+                    // Player wins game
+                    game.setState(GameState.FINISHED);
                 }
-            });
-        }
-        return result.get(0);
+                else {
+                    game.setState(GameState.CLASH_CONCLUDED);
+                }
+            }
+            this.publishGameUpdate(game, JournalRecord.ofPlayer(JournalRecord.Type.TOTEM_PICKED_UP, game.getId(), playerId));
+            return true;
+        }).thenApply(result -> result.orElse(false));
     }
 
     /*
@@ -469,29 +701,22 @@ public class GameService {
      * discard their card in play
      * and remove them from the initiative order
      */
-    public void playerForfeitClash(String playerId) {
-        Optional<Player> playerCheck = this.playerService.findPlayerById(playerId);
-        
-        if (playerCheck.isPresent()) {
-            Player player = playerCheck.get();
-
-            String gameId = player.getGameId();
-            games.computeIfPresent(gameId, (id, game) -> {
-                synchronized (game) {
-                    // Remove card in play
-                    if (!game.getCardsInPlay().containsKey(playerId) && !(game.getState() == GameState.CLASH_PLAYER_REPLACING_CARD)) return game;
-                    game.removeCardInPlay(playerId);
-                    // Handle initiative order
-                    // Forfeit during turn: remove from order then update lastAction
-                    game.removePlayerFromInitiative(player);
-                    // Update game state & last action
-                    game.setLastAction("null", playerId, -1);
-                    game.setState(GameState.CLASH_PROCESSING_DECISION);
-                    this.publishGameUpdate(gameId);
-                    return game;
-                }
-            });
-        }
+    public CompletableFuture<Void> playerForfeitClash(String playerId) {
+        return this.submitForPlayer("playerForfeitClash", playerId, game -> {
+            // Remove card in play
+            if (!game.hasCardInPlay(playerId) && !(game.getState() == GameState.CLASH_PLAYER_REPLACING_CARD)) return null;
+            Player playerTransient = game.getPlayer(playerId);
+            if (playerTransient == null) return null;
+            game.removeCardInPlay(playerId);
+            // Handle initiative order
+            // Forfeit during turn: remove from order then update lastAction
+            game.removePlayerFromInitiative(playerTransient);
+            // Update game state & last action
+            game.setLastAction("null", playerId, -1);
+            game.setState(GameState.CLASH_PROCESSING_DECISION);
+            this.publishGameUpdate(game, JournalRecord.ofPlayer(JournalRecord.Type.FORFEITED, game.getId(), playerId));
+            return null;
+        }).thenApply(result -> null);
     }
 
     /*
@@ -499,34 +724,23 @@ public class GameService {
      * verify that they've won the clash,
      * then award them if they won
      */
-    public boolean playerWonClash(String playerId) {
-        Optional<Player> playerCheck = this.playerService.findPlayerById(playerId);
-        final List<Boolean> result = new ArrayList<>(1);
-        result.add(false);
-        if (playerCheck.isPresent()) {
-            Player player = playerCheck.get();
-
-            String gameId = player.getGameId();
-            games.computeIfPresent(gameId, (id, game) -> {
-                synchronized (game) {
-                    Player playerTransient = game.getPlayer(player.getId());
-                    if(game.getCardsInPlay().size() == 1 && game.getPlayerCardInPlay(playerId) != null) {
-                        int sacredStones = playerTransient.giveSacredStone();
-                        if (sacredStones == 3) {
-                            // Player wins game
-                            game.setState(GameState.FINISHED);
-                        }
-                        else {
-                            game.setState(GameState.CLASH_CONCLUDED);
-                        }
-                        result.set(0, true);
-                        this.publishGameUpdate(gameId);
-                    }
-                    return game;
+    public CompletableFuture<Boolean> playerWonClash(String playerId) {
+        return this.submitForPlayer("playerWonClash", playerId, game -> {
+            Player playerTransient = game.getPlayer(playerId);
+            if (playerTransient == null) return false;
+            if (game.numCardsInPlay() == 1 && game.getPlayerCardInPlay(playerId) != null) {
+                int sacredStones = playerTransient.giveSacredStone();
+                if (sacredStones == 3) {
+                    // Player wins game
+                    game.setState(GameState.FINISHED);
                 }
-            });
-        }
-
-        return result.get(0);
+                else {
+                    game.setState(GameState.CLASH_CONCLUDED);
+                }
+                this.publishGameUpdate(game, JournalRecord.ofPlayer(JournalRecord.Type.CLASH_WON, game.getId(), playerId));
+                return true;
+            }
+            return false;
+        }).thenApply(result -> result.orElse(false));
     }
 }
@@ -0,0 +1,64 @@
+package com.inoka.inoka_app.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.inoka.inoka_app.config.CborEncoding;
+
+/*
+ * Serialized view of a Game at one version.
+ * The tree is captured inside the game's mailbox so it is always consistent,
+ * the JSON (and CBOR) bytes are written from it on first use and shared by every reader.
+ */
+public class GameSnapshot {
+    private final String gameId;
+    private final long version;
+    private final ObjectNode tree;
+    private final ObjectMapper objectMapper;
+    private byte[] json;
+    private byte[] cbor;
+
+    GameSnapshot(String gameId, long version, ObjectNode tree, ObjectMapper objectMapper) {
+        this.gameId = gameId;
+        this.version = version;
+        this.tree = tree;
+        this.objectMapper = objectMapper;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Must not be modified by callers
+    public ObjectNode getTree() {
+        return tree;
+    }
+
+    public synchronized byte[] getJson() {
+        if (json == null) {
+            try {
+                json = objectMapper.writeValueAsBytes(tree);
+            }
+            catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize game " + gameId, e);
+            }
+        }
+        return json;
+    }
+
+    public synchronized byte[] getCbor() {
+        if (cbor == null) {
+            try {
+                cbor = CborEncoding.MAPPER.writeValueAsBytes(tree);
+            }
+            catch (JsonProcessingException e) {
+                throw new IllegalStateException("Could not serialize game " + gameId, e);
+            }
+        }
+        return cbor;
+    }
+}
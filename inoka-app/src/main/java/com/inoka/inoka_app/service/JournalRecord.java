@@ -0,0 +1,49 @@
+package com.inoka.inoka_app.service;
+
+/*
+ * One state-changing GameService command, as written to the game journal.
+ * Replaying a game's records in order against a game with the same seed rebuilds it exactly.
+ * Fields a type does not use are null (or 0 for value).
+ */
+record JournalRecord(Type type, String gameId, String playerId, String arg, long value) {
+
+    // Ordinals are written to disk, only ever append new types
+    enum Type {
+        // value: seed, arg: passcode
+        CREATED,
+        // arg: player name
+        JOINED,
+        LEFT,
+        READY,
+        GAME_STARTED,
+        CLASH_STARTED,
+        NEW_CLASH,
+        TURN_ENDED,
+        // arg: card id
+        CARD_PLAYED,
+        INITIATIVE_ROLLED,
+        // arg: UUID of the player receiving damage, or "null" for a skipped turn
+        DAMAGE_DEALT,
+        CARD_REMOVED,
+        TOTEM_PICKED_UP,
+        FORFEITED,
+        CLASH_WON,
+        REMOVED
+    }
+
+    static JournalRecord created(String gameId, String passcode, long seed) {
+        return new JournalRecord(Type.CREATED, gameId, null, passcode, seed);
+    }
+
+    static JournalRecord ofGame(Type type, String gameId) {
+        return new JournalRecord(type, gameId, null, null, 0);
+    }
+
+    static JournalRecord ofPlayer(Type type, String gameId, String playerId) {
+        return new JournalRecord(type, gameId, playerId, null, 0);
+    }
+
+    static JournalRecord ofPlayer(Type type, String gameId, String playerId, String arg) {
+        return new JournalRecord(type, gameId, playerId, arg, 0);
+    }
+}
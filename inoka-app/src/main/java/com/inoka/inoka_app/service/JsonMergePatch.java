@@ -0,0 +1,44 @@
+package com.inoka.inoka_app.service;
+
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/*
+ * Builds JSON Merge Patches (RFC 7386) between two serialized game trees.
+ * Objects are diffed field by field, removed fields become null,
+ * and arrays or values that changed are replaced whole.
+ */
+final class JsonMergePatch {
+
+    private JsonMergePatch() {
+    }
+
+    /*
+     * Returns the patch turning source into target,
+     * or an empty object if they are equal
+     */
+    static ObjectNode diff(ObjectNode source, ObjectNode target) {
+        ObjectNode patch = JsonNodeFactory.instance.objectNode();
+
+        for (Map.Entry<String, JsonNode> entry : source.properties()) {
+            if (!target.has(entry.getKey())) patch.putNull(entry.getKey());
+        }
+
+        for (Map.Entry<String, JsonNode> entry : target.properties()) {
+            JsonNode previous = source.get(entry.getKey());
+            JsonNode current = entry.getValue();
+            if (current.equals(previous)) continue;
+
+            if (previous != null && previous.isObject() && current.isObject()) {
+                patch.set(entry.getKey(), diff((ObjectNode) previous, (ObjectNode) current));
+            }
+            else {
+                patch.set(entry.getKey(), current);
+            }
+        }
+        return patch;
+    }
+}
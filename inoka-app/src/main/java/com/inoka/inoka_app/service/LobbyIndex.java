@@ -0,0 +1,177 @@
+package com.inoka.inoka_app.service;
+
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import com.inoka.inoka_app.model.Game;
+
+/*
+ * Index of games that are still accepting players.
+ * Passcode lobbies are keyed by passcode, public lobbies are queued oldest first.
+ * Seats are claimed on the lobby itself, so joins for different passcodes never share a lock.
+ */
+class LobbyIndex {
+    static final int MAX_PLAYERS = 6;
+
+    // Passcode --> Lobby currently accepting players with that passcode
+    private final ConcurrentHashMap<String, Lobby> passcodeLobbies = new ConcurrentHashMap<>();
+    // Public lobbies with free seats, oldest first, each queued at most once
+    private final Queue<Lobby> publicLobbies = new ConcurrentLinkedQueue<>();
+    // Game UUID --> Lobby, for every lobby that has not been closed
+    private final ConcurrentHashMap<String, Lobby> lobbiesByGameId = new ConcurrentHashMap<>();
+
+    static boolean isPublic(String passcode) {
+        return passcode == null || passcode.isEmpty();
+    }
+
+    /*
+     * Claims a seat in an open lobby matching the passcode
+     * Returns Optional.empty() if no lobby has a free seat
+     */
+    Optional<Game> claimSeat(String passcode) {
+        if (isPublic(passcode)) {
+            Lobby lobby;
+            while ((lobby = publicLobbies.peek()) != null) {
+                if (lobby.tryClaim()) return Optional.of(lobby.game);
+                // Head is full or closed, drop it and look at the next one
+                if (publicLobbies.remove(lobby)) {
+                    lobby.queued.set(false);
+                    // A seat freed after the claim failed was not relisted while the lobby was still queued
+                    if (lobby.isOpen()) this.enqueue(lobby);
+                }
+            }
+            return Optional.empty();
+        }
+
+        Lobby lobby;
+        while ((lobby = passcodeLobbies.get(passcode)) != null) {
+            if (lobby.tryClaim()) {
+                if (!lobby.isOpen()) passcodeLobbies.remove(passcode, lobby);
+                return Optional.of(lobby.game);
+            }
+            passcodeLobbies.remove(passcode, lobby);
+        }
+        return Optional.empty();
+    }
+
+    /*
+     * Claims a seat in the given game's lobby, e.g. for a bot filling it
+     * Returns false if the game is not an open lobby with a free seat
+     */
+    boolean claimSeatIn(String gameId) {
+        Lobby lobby = lobbiesByGameId.get(gameId);
+        return lobby != null && lobby.tryClaim();
+    }
+
+    /*
+     * Gives back a seat claimed with claimSeat(), or freed by a player leaving
+     * A lobby that was full is listed again
+     */
+    void releaseSeat(Game game) {
+        Lobby lobby = lobbiesByGameId.get(game.getId());
+        if (lobby != null && lobby.release()) this.relist(lobby);
+    }
+
+    /*
+     * Registers a newly created game as a lobby, with its first seat already claimed
+     * Returns false if another open lobby already holds the game's passcode
+     */
+    boolean open(Game game) {
+        return this.register(new Lobby(game, 1));
+    }
+
+    /*
+     * Registers a lobby rebuilt from the game journal, with a seat claimed for every player already in it
+     * Returns false under the same conditions as open()
+     */
+    boolean restore(Game game) {
+        return this.register(new Lobby(game, game.numPlayers()));
+    }
+
+    private boolean register(Lobby lobby) {
+        Game game = lobby.game;
+        String passcode = game.getPasscode();
+        if (isPublic(passcode)) {
+            lobbiesByGameId.put(game.getId(), lobby);
+            this.enqueue(lobby);
+            return true;
+        }
+
+        Lobby existing = passcodeLobbies.putIfAbsent(passcode, lobby);
+        if (existing != null && (existing.isOpen() || !passcodeLobbies.replace(passcode, existing, lobby))) {
+            return false;
+        }
+        lobbiesByGameId.put(game.getId(), lobby);
+        return true;
+    }
+
+    /*
+     * Stops a game from accepting players, e.g. when it leaves WAITING_FOR_PLAYERS
+     */
+    void close(String gameId) {
+        Lobby lobby = lobbiesByGameId.remove(gameId);
+        if (lobby != null) {
+            lobby.close();
+            String passcode = lobby.game.getPasscode();
+            // Closed public lobbies left in the queue are dropped once they reach the head
+            if (!isPublic(passcode)) passcodeLobbies.remove(passcode, lobby);
+        }
+    }
+
+    private void relist(Lobby lobby) {
+        String passcode = lobby.game.getPasscode();
+        if (isPublic(passcode)) {
+            this.enqueue(lobby);
+            return;
+        }
+        // If a newer lobby took over the passcode meanwhile, this one is only reachable by its id
+        Lobby existing = passcodeLobbies.putIfAbsent(passcode, lobby);
+        if (existing != null && existing != lobby && !existing.isOpen()) {
+            passcodeLobbies.replace(passcode, existing, lobby);
+        }
+    }
+
+    // Queues a public lobby unless it is already waiting in the queue
+    private void enqueue(Lobby lobby) {
+        if (lobby.queued.compareAndSet(false, true)) publicLobbies.add(lobby);
+    }
+
+    private static final class Lobby {
+        private final Game game;
+        // In publicLobbies, so a lobby opening & filling up repeatedly never builds up duplicates
+        private final AtomicBoolean queued = new AtomicBoolean();
+        private int claimedSeats;
+        private boolean closed;
+
+        Lobby(Game game, int claimedSeats) {
+            this.game = game;
+            this.claimedSeats = claimedSeats;
+            this.closed = false;
+        }
+
+        synchronized boolean tryClaim() {
+            if (!isOpen()) return false;
+            claimedSeats++;
+            return true;
+        }
+
+        // Returns true if the lobby went from full to having a free seat
+        synchronized boolean release() {
+            if (claimedSeats == 0) return false;
+            boolean wasFull = claimedSeats >= MAX_PLAYERS;
+            claimedSeats--;
+            return wasFull && !closed;
+        }
+
+        synchronized void close() {
+            closed = true;
+        }
+
+        synchronized boolean isOpen() {
+            return !closed && claimedSeats < MAX_PLAYERS;
+        }
+    }
+}
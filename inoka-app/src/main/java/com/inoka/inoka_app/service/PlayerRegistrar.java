@@ -0,0 +1,175 @@
+package com.inoka.inoka_app.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import com.inoka.inoka_app.model.Player;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Inserts newly registered players, batching registrations from concurrent requests together.
+ * New players get their UUID in the constructor, so saving one through the repository is a merge:
+ * a SELECT for the id, then the INSERT. Registrations are plain INSERTs instead.
+ * One writer thread takes whatever registrations are waiting, up to a batch, and inserts them in one JDBC batch;
+ * registrations arriving while a batch is written go out together in the next one.
+ * At most `capacity` registrations wait at once, callers block past that.
+ */
+@Service
+public class PlayerRegistrar {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlayerRegistrar.class);
+    private static final String INSERT_SQL = "INSERT INTO players (play_id, play_name, game_id) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final BlockingQueue<Registration> queue;
+    private final Thread writer;
+    private final Timer insertTime;
+    private final DistributionSummary batchSizes;
+    private volatile boolean closed;
+
+    public PlayerRegistrar(
+        JdbcTemplate jdbcTemplate,
+        MeterRegistry meterRegistry,
+        @Value("${inoka.players.registration.batch-size:500}") int batchSize,
+        @Value("${inoka.players.registration.capacity:10000}") int capacity
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+        this.insertTime = Timer.builder("inoka.players.register")
+            .description("Time to insert a batch of newly registered players")
+            .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("inoka.players.register.batch")
+            .description("Players inserted per batch")
+            .register(meterRegistry);
+        this.writer = Thread.ofVirtual().name("player-register").start(this::run);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        closed = true;
+        writer.interrupt();
+        writer.join();
+    }
+
+    /*
+     * Queues a new player to be inserted
+     * Completes with the player once its row exists, or exceptionally if the insert failed or the registrar is shut down
+     */
+    public CompletableFuture<Player> register(Player player) {
+        if (closed) return CompletableFuture.failedFuture(new IllegalStateException("Registrations are closed"));
+        Registration registration = new Registration(player, new CompletableFuture<>());
+        try {
+            queue.put(registration);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            registration.result().completeExceptionally(e);
+            return registration.result();
+        }
+        // Shut down while queueing: the writer may have drained the queue already and would never see it
+        if (closed && queue.remove(registration)) {
+            registration.result().completeExceptionally(new IllegalStateException("Registrations are closed"));
+        }
+        return registration.result();
+    }
+
+    // Completes once every player is inserted, or exceptionally if any insert failed
+    public CompletableFuture<List<Player>> registerAll(List<Player> players) {
+        List<CompletableFuture<Player>> results = new ArrayList<>(players.size());
+        for (Player player : players) results.add(this.register(player));
+        return CompletableFuture.allOf(results.toArray(CompletableFuture[]::new))
+            .thenApply(done -> results.stream().map(CompletableFuture::join).toList());
+    }
+
+    private void run() {
+        List<Registration> batch = new ArrayList<>(batchSize);
+        try {
+            while (true) {
+                batch.add(queue.take());
+                queue.drainTo(batch, batchSize - 1);
+                try {
+                    this.insert(batch);
+                }
+                catch (RuntimeException e) {
+                    // Keeps the writer alive for the next batch
+                    this.fail(batch, e);
+                }
+                batch.clear();
+            }
+        }
+        catch (InterruptedException e) {
+            // Shutting down, whatever is still queued is inserted first
+            queue.drainTo(batch);
+            for (int from = 0; from < batch.size(); from += batchSize) {
+                List<Registration> chunk = batch.subList(from, Math.min(batch.size(), from + batchSize));
+                try {
+                    this.insert(chunk);
+                }
+                catch (RuntimeException failure) {
+                    this.fail(chunk, failure);
+                }
+            }
+        }
+        catch (Throwable e) {
+            // The writer is gone, nothing queued now or later would ever complete
+            closed = true;
+            queue.drainTo(batch);
+            this.fail(batch, e);
+            throw e;
+        }
+    }
+
+    // Registrations already completed keep their result
+    private void fail(List<Registration> batch, Throwable cause) {
+        logger.warn("Could not register {} player(s)", batch.size(), cause);
+        for (Registration registration : batch) registration.result().completeExceptionally(cause);
+    }
+
+    private void insert(List<Registration> batch) {
+        long start = System.nanoTime();
+        List<Object[]> rows = new ArrayList<>(batch.size());
+        for (Registration registration : batch) {
+            Player player = registration.player();
+            rows.add(new Object[] { player.getId(), player.getName(), player.getGameId() });
+        }
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        }
+        catch (DataAccessException e) {
+            // One bad row, e.g. a duplicate id, fails the whole batch: find it by inserting one at a time
+            logger.debug("Batch of {} registration(s) failed, retrying one by one", batch.size(), e);
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    jdbcTemplate.update(INSERT_SQL, rows.get(i));
+                    batch.get(i).result().complete(batch.get(i).player());
+                }
+                catch (RuntimeException rowFailure) {
+                    batch.get(i).result().completeExceptionally(rowFailure);
+                }
+            }
+            return;
+        }
+        insertTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        batchSizes.record(batch.size());
+        for (Registration registration : batch) registration.result().complete(registration.player());
+    }
+
+    private record Registration(Player player, CompletableFuture<Player> result) {}
+}
@@ -2,6 +2,7 @@ package com.inoka.inoka_app.service;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.stereotype.Service;
 
@@ -12,38 +13,71 @@ import com.inoka.inoka_app.repositories.PlayerRepository;
 public class PlayerService {
     // Repo containing player data (name, id, gameid)
     private final PlayerRepository playerRepository;
+    // Holds cached principals that must be dropped when a player's row changes
+    private final CustomUserDetailsService userDetailsService;
+    // Batches name & game id changes, off the caller's thread
+    private final PlayerWriteBehind writeBehind;
+    // Inserts new players in batches, without the repository's lookup before each insert
+    private final PlayerRegistrar registrar;
 
-    public PlayerService(PlayerRepository playerRepository) {
+    public PlayerService(
+        PlayerRepository playerRepository,
+        CustomUserDetailsService userDetailsService,
+        PlayerWriteBehind writeBehind,
+        PlayerRegistrar registrar
+    ) {
         this.playerRepository = playerRepository;
+        this.userDetailsService = userDetailsService;
+        this.writeBehind = writeBehind;
+        this.registrar = registrar;
     }
 
+    // Inserts or overwrites the player's row
     public Player addPlayer(Player player) {
         return playerRepository.save(player);
     }
 
+    /*
+     * Inserts a player that does not exist yet
+     * Completes exceptionally if a player with the same id already exists
+     */
+    public CompletableFuture<Player> registerPlayer(Player player) {
+        return registrar.register(player);
+    }
+
+    public CompletableFuture<List<Player>> registerPlayers(List<Player> players) {
+        return registrar.registerAll(players);
+    }
+
     public List<Player> findAllPlayers() {
         return playerRepository.findAll();
     }
 
     public Player savePlayer(Player player) {
-        return playerRepository.save(player);
+        Player saved = playerRepository.save(player);
+        userDetailsService.evictPlayer(saved.getId());
+        return saved;
+    }
+
+    /*
+     * Queues the player's game id to be written in the background
+     * Repeated updates to one player are merged, the cached principal is dropped once the row is written
+     */
+    public void queueGameIdUpdate(Player player) {
+        writeBehind.queueGameId(player);
     }
 
     public boolean updatePlayer(String id, String name) {
-        Optional<Player> playerCheck = playerRepository.findPlayerById(id);
-        if (playerCheck.isPresent()) {
-            Player player = playerCheck.get();
-            player.setName(name);
-            playerRepository.save(player);
-            return true;
-        } else {
-            return false;
-        }
+        if (!playerRepository.existsById(id)) return false;
+        // Only the name, a game id read from the stored row may already be stale
+        writeBehind.queueName(id, name);
+        return true;
     }
 
     public boolean removePlayerById(String id) {
         if (playerRepository.existsById(id)) {
             playerRepository.deleteById(id);
+            userDetailsService.evictPlayer(id);
             return true;
         }
         else {
@@ -58,5 +92,6 @@ public class PlayerService {
 
     public void removeAllPlayers() {
         playerRepository.deleteAll();
+        userDetailsService.evictAll();
     }
 }
@@ -0,0 +1,203 @@
+package com.inoka.inoka_app.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.stereotype.Service;
+
+import com.inoka.inoka_app.model.Player;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Writes players' names & game ids to the database in the background, off the game's mailbox.
+ * Names and game ids are queued separately, by whoever changed them, and repeated writes to one player
+ * before a flush are merged column by column: each column gets its latest value, a column nobody changed is left alone.
+ * Pending writes are flushed as batched UPDATEs every flush interval, or as soon as a batch fills up.
+ * At most `capacity` players wait at once; past that, callers block until a flush makes room,
+ * so a slow database slows the games down instead of growing the queue without bound.
+ * Everything still pending is flushed at shutdown.
+ */
+@Service
+public class PlayerWriteBehind {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlayerWriteBehind.class);
+    // UPDATE rather than save(), so a player deleted while its write was pending is not recreated
+    static final String UPDATE_SQL = "UPDATE players SET play_name = ?, game_id = ? WHERE play_id = ?";
+    static final String UPDATE_NAME_SQL = "UPDATE players SET play_name = ? WHERE play_id = ?";
+    static final String UPDATE_GAME_ID_SQL = "UPDATE players SET game_id = ? WHERE play_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CustomUserDetailsService userDetailsService;
+    private final int capacity;
+    private final int batchSize;
+    // Player UUID --> Columns to write, merged with later writes to the same player
+    private final ConcurrentHashMap<String, PlayerWrite> pending = new ConcurrentHashMap<>();
+    // One permit per player pending or being written
+    private final Semaphore room;
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    // Keeps a scheduled flush & the shutdown flush from writing at once
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    private final Timer flushTime;
+
+    public PlayerWriteBehind(
+        JdbcTemplate jdbcTemplate,
+        CustomUserDetailsService userDetailsService,
+        MeterRegistry meterRegistry,
+        @Value("${inoka.players.write-behind.capacity:10000}") int capacity,
+        @Value("${inoka.players.write-behind.batch-size:500}") int batchSize,
+        @Value("${inoka.players.write-behind.flush-interval:50ms}") Duration flushInterval
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userDetailsService = userDetailsService;
+        this.capacity = Math.max(1, capacity);
+        this.batchSize = Math.max(1, batchSize);
+        this.room = new Semaphore(this.capacity);
+        this.flushTime = Timer.builder("inoka.players.flush")
+            .description("Time to write a batch of pending player updates")
+            .register(meterRegistry);
+        Gauge.builder("inoka.players.pending", pending, ConcurrentHashMap::size)
+            .description("Players with a write waiting to be flushed")
+            .register(meterRegistry);
+        scheduler.setThreadNamePrefix("player-write-");
+        scheduler.initialize();
+        // First flush one interval in, not straight away
+        scheduler.scheduleWithFixedDelay(this::flush, Instant.now().plus(flushInterval), flushInterval);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        this.flush();
+        if (!pending.isEmpty()) logger.error("Lost {} pending player write(s) at shutdown", pending.size());
+    }
+
+    /*
+     * Queues a player's new name to be written, leaving their game id as it is
+     * Blocks while the queue is full
+     */
+    public void queueName(String playerId, String name) {
+        this.queue(new PlayerWrite(playerId, true, name, false, null));
+    }
+
+    /*
+     * Queues a player's current game id to be written, leaving their name as it is
+     * Blocks while the queue is full
+     */
+    public void queueGameId(Player player) {
+        this.queue(new PlayerWrite(player.getId(), false, null, true, player.getGameId()));
+    }
+
+    private void queue(PlayerWrite write) {
+        // Already pending, the newer columns are merged into it
+        if (pending.computeIfPresent(write.id(), (id, queued) -> queued.merge(write)) != null) return;
+
+        if (!room.tryAcquire()) {
+            this.requestFlush();
+            room.acquireUninterruptibly();
+        }
+        boolean[] merged = new boolean[1];
+        pending.compute(write.id(), (id, queued) -> {
+            merged[0] = queued != null;
+            return merged[0] ? queued.merge(write) : write;
+        });
+        // Another caller queued the same player meanwhile, it holds the permit
+        if (merged[0]) room.release();
+        if (capacity - room.availablePermits() >= batchSize) this.requestFlush();
+    }
+
+    // Number of players waiting to be written
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) scheduler.execute(this::flush);
+    }
+
+    void flush() {
+        flushLock.lock();
+        try {
+            flushRequested.set(false);
+            List<PlayerWrite> batch = new ArrayList<>(batchSize);
+            for (String playerId : pending.keySet()) {
+                PlayerWrite write = pending.remove(playerId);
+                if (write == null) continue;
+                batch.add(write);
+                if (batch.size() == batchSize) {
+                    this.writeBatch(batch);
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) this.writeBatch(batch);
+        }
+        finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void writeBatch(List<PlayerWrite> batch) {
+        long start = System.nanoTime();
+        // One statement per set of columns written
+        List<Object[]> both = new ArrayList<>();
+        List<Object[]> names = new ArrayList<>();
+        List<Object[]> gameIds = new ArrayList<>();
+        for (PlayerWrite write : batch) {
+            if (write.hasName() && write.hasGameId()) both.add(new Object[] { write.name(), write.gameId(), write.id() });
+            else if (write.hasName()) names.add(new Object[] { write.name(), write.id() });
+            else gameIds.add(new Object[] { write.gameId(), write.id() });
+        }
+        try {
+            if (!both.isEmpty()) jdbcTemplate.batchUpdate(UPDATE_SQL, both);
+            if (!names.isEmpty()) jdbcTemplate.batchUpdate(UPDATE_NAME_SQL, names);
+            if (!gameIds.isEmpty()) jdbcTemplate.batchUpdate(UPDATE_GAME_ID_SQL, gameIds);
+        }
+        catch (DataAccessException e) {
+            logger.warn("Could not write {} player update(s), retrying next flush", batch.size(), e);
+            for (PlayerWrite write : batch) {
+                boolean[] merged = new boolean[1];
+                pending.compute(write.id(), (id, queued) -> {
+                    merged[0] = queued != null;
+                    // Newer columns queued meanwhile win over the failed ones, the merged write holds their permit
+                    return merged[0] ? write.merge(queued) : write;
+                });
+                if (merged[0]) room.release();
+            }
+            return;
+        }
+        flushTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        for (PlayerWrite write : batch) {
+            // Principals cached before the row changed must not outlive the write
+            userDetailsService.evictPlayer(write.id());
+        }
+        room.release(batch.size());
+    }
+
+    // A column is only written if its has* flag is set, a null game id is a player leaving their game
+    private record PlayerWrite(String id, boolean hasName, String name, boolean hasGameId, String gameId) {
+
+        // The columns of both, newer's values where both set the same column
+        PlayerWrite merge(PlayerWrite newer) {
+            return new PlayerWrite(id,
+                hasName || newer.hasName, newer.hasName ? newer.name : name,
+                hasGameId || newer.hasGameId, newer.hasGameId ? newer.gameId : gameId);
+        }
+    }
+}
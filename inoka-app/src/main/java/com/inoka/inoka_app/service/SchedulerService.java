@@ -1,60 +1,223 @@
 package com.inoka.inoka_app.service;
 
-import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.inoka.inoka_app.config.CborEncoding;
+import com.inoka.inoka_app.event.GameRemovedEvent;
 import com.inoka.inoka_app.event.GameUpdateEvent;
 import com.inoka.inoka_app.model.Game;
+import com.inoka.inoka_app.model.GameDelta;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
 @Service
 public class SchedulerService {
 
     private static final Logger logger = LoggerFactory.getLogger(SchedulerService.class);
     private final SimpMessagingTemplate messagingTemplate;
-    private final ConcurrentHashMap<String, Game> pendingGameUpdates = new ConcurrentHashMap<>();
+    private final GameService gameService;
+    private final CborSubscriptions cborSubscriptions;
+    private final ShardRouter shardRouter;
+    // Send only the fields that changed since the previous broadcast of each game
+    private final boolean deltaEnabled;
+    // Updates marked within this window after a game's first dirty mark go out in one broadcast
+    private final long coalesceWindowNanos;
+    private final long maxCoalesceWindowNanos;
+    // Every this many games waiting to flush widens the window by one more coalesceWindow
+    private final int backoffThreshold;
+    // Game UUID --> System.nanoTime() of the first change not yet broadcast
+    private final ConcurrentHashMap<String, Long> pendingGameUpdates = new ConcurrentHashMap<>();
+    // Game UUID --> Last broadcast version & tree, used as the base of the next delta
+    private final ConcurrentHashMap<String, Broadcast> lastBroadcasts = new ConcurrentHashMap<>();
     private final ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+    // Time from a game's first dirty mark to its broadcast being handed to the broker
+    private final Timer flushLatency;
+    // Writing the JSON bytes (or diffing, in delta mode) & handing the message to the broker
+    private final Timer serializeTime;
+    private final Timer sendTime;
 
-    public SchedulerService(SimpMessagingTemplate messagingTemplate) {
+    public SchedulerService(
+        SimpMessagingTemplate messagingTemplate,
+        GameService gameService,
+        CborSubscriptions cborSubscriptions,
+        ShardRouter shardRouter,
+        MeterRegistry meterRegistry,
+        @Value("${inoka.broadcast.delta-enabled:false}") boolean deltaEnabled,
+        @Value("${inoka.broadcast.coalesce-window-ms:15}") long coalesceWindowMs,
+        @Value("${inoka.broadcast.max-coalesce-window-ms:500}") long maxCoalesceWindowMs,
+        @Value("${inoka.broadcast.backoff-threshold:256}") int backoffThreshold,
+        @Value("${inoka.broadcast.pool-size:2}") int poolSize
+    ) {
         this.messagingTemplate = messagingTemplate;
+        this.gameService = gameService;
+        this.cborSubscriptions = cborSubscriptions;
+        this.shardRouter = shardRouter;
+        this.deltaEnabled = deltaEnabled;
+        this.coalesceWindowNanos = TimeUnit.MILLISECONDS.toNanos(coalesceWindowMs);
+        this.maxCoalesceWindowNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(coalesceWindowMs, maxCoalesceWindowMs));
+        this.backoffThreshold = Math.max(1, backoffThreshold);
+        this.flushLatency = Timer.builder("inoka.broadcast.flush.latency")
+            .description("Time from a game's first unbroadcast change to its broadcast")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+        this.serializeTime = Timer.builder("inoka.broadcast.serialize")
+            .description("Time to encode a game update for broadcast")
+            .register(meterRegistry);
+        this.sendTime = Timer.builder("inoka.broadcast.send")
+            .description("Time to hand a game update to the message broker")
+            .register(meterRegistry);
+        Gauge.builder("inoka.broadcast.pending", pendingGameUpdates, Map::size)
+            .description("Games with changes waiting to be broadcast")
+            .register(meterRegistry);
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("game-broadcast-");
         scheduler.initialize();
-        startBatchUpdateTask();
     }
 
-    // Broadcasts pending changes to Game objects on a fixed 500ms interval
-    private void startBatchUpdateTask() {
-        scheduler.scheduleAtFixedRate(this::broadcastPendingUpdates, Duration.ofMillis(500));
+    /*
+     * Delay before flushing a newly dirtied game
+     * Grows with the number of games already waiting so bursts under load are merged more aggressively
+     */
+    private long currentWindowNanos() {
+        long steps = 1 + pendingGameUpdates.size() / backoffThreshold;
+        return Math.min(maxCoalesceWindowNanos, coalesceWindowNanos * steps);
+    }
+
+    private void flushGameUpdate(String gameId) {
+        // Removed before reading the snapshot, so changes made from here on schedule a new flush
+        Long dirtySince = pendingGameUpdates.remove(gameId);
+        if (dirtySince == null) return;
+        // Serialized once per version and shared with REST readers
+        gameService.getSnapshot(gameId).thenAccept(snapshot -> snapshot.ifPresent(s -> {
+            sendSnapshot(s);
+            flushLatency.record(System.nanoTime() - dirtySince, TimeUnit.NANOSECONDS);
+        }));
+    }
+
+    private void sendSnapshot(GameSnapshot snapshot) {
+        String destination = "/topic/game/" + snapshot.getGameId();
+        // Encoded as CBOR only while someone is subscribed to the game's CBOR topic
+        // Subscribers on other nodes are not tracked here, so a sharded node always encodes it
+        boolean cbor = shardRouter.isEnabled() || cborSubscriptions.hasSubscribers(snapshot.getGameId());
+        if (deltaEnabled) {
+            sendDelta(destination, snapshot, cbor);
+        }
+        else {
+            long start = System.nanoTime();
+            // Pre-serialized bytes go out as-is, no message conversion
+            Message<byte[]> message = encodedMessage(snapshot.getJson(), MimeTypeUtils.APPLICATION_JSON);
+            Message<byte[]> cborMessage = cbor ? encodedMessage(snapshot.getCbor(), MimeTypeUtils.APPLICATION_OCTET_STREAM) : null;
+            long serialized = System.nanoTime();
+            messagingTemplate.send(destination, message);
+            if (cborMessage != null) messagingTemplate.send(destination + CborEncoding.TOPIC_SUFFIX, cborMessage);
+            serializeTime.record(serialized - start, TimeUnit.NANOSECONDS);
+            sendTime.record(System.nanoTime() - serialized, TimeUnit.NANOSECONDS);
+        }
+        logger.debug("Sent update for game {} (version {}) to {}", snapshot.getGameId(), snapshot.getVersion(), destination);
+    }
+
+    /*
+     * Sends the changes since the last broadcast of this game,
+     * or the whole game if it has not been broadcast before
+     */
+    private void sendDelta(String destination, GameSnapshot snapshot, boolean cbor) {
+        GameDelta delta = this.nextDelta(snapshot);
+        if (delta == null) return;
+        long start = System.nanoTime();
+        messagingTemplate.convertAndSend(destination, delta);
+        if (cbor) {
+            messagingTemplate.send(destination + CborEncoding.TOPIC_SUFFIX, encodedMessage(encodeCbor(delta), MimeTypeUtils.APPLICATION_OCTET_STREAM));
+        }
+        sendTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
     }
 
-    private void broadcastPendingUpdates() {
-        if (!pendingGameUpdates.isEmpty()) {
-            logger.debug("Broadcasting {} pending game update(s)", pendingGameUpdates.size());
-            
-            for (Game game : pendingGameUpdates.values()) {
-                String destination = "/topic/game/" + game.getId();
-                messagingTemplate.convertAndSend(destination, game);
-                logger.debug("    Sent update for game {} to {}", game.getId(), destination);
-                logger.debug("    Game state: {}, Players: {}", 
-                    game.getState(), 
-                    game.getPlayers() != null ? game.getPlayers().size() : 0);
+    /*
+     * Returns null if there is nothing new to send
+     * Diffed & stored under the game's entry, so two flushes of one game never diff against the same base
+     * and an older version never replaces a newer one
+     */
+    private GameDelta nextDelta(GameSnapshot snapshot) {
+        long version = snapshot.getVersion();
+        ObjectNode tree = snapshot.getTree();
+        GameDelta[] delta = new GameDelta[1];
+        lastBroadcasts.compute(snapshot.getGameId(), (gameId, previous) -> {
+            if (previous == null) {
+                delta[0] = GameDelta.snapshot(gameId, version, tree);
+                return new Broadcast(version, tree);
             }
-            
-            pendingGameUpdates.clear();
+            // A newer version was already sent
+            if (previous.version() >= version) return previous;
+            long start = System.nanoTime();
+            ObjectNode changes = JsonMergePatch.diff(previous.tree(), tree);
+            serializeTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            // Nothing visible changed, keep the previous base so clients stay in step
+            if (changes.isEmpty()) return previous;
+            delta[0] = new GameDelta(gameId, version, previous.version(), false, changes);
+            return new Broadcast(version, tree);
+        });
+        return delta[0];
+    }
+
+    /*
+     * Wraps pre-encoded bytes in a broker message
+     * CBOR goes out as application/octet-stream, the only type STOMP over WebSocket sends as a binary frame
+     */
+    private static Message<byte[]> encodedMessage(byte[] payload, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(contentType);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private static byte[] encodeCbor(GameDelta delta) {
+        try {
+            return CborEncoding.MAPPER.writeValueAsBytes(delta);
+        }
+        catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize update for game " + delta.getGameId(), e);
         }
     }
 
     public void queueGameUpdate(Game game) {
-        pendingGameUpdates.put(game.getId(), game);
+        long now = System.nanoTime();
+        // Only the first mark schedules a flush, later marks ride along with it
+        if (pendingGameUpdates.putIfAbsent(game.getId(), now) == null) {
+            Instant flushAt = Instant.now().plusNanos(currentWindowNanos());
+            scheduler.schedule(() -> flushGameUpdate(game.getId()), flushAt);
+        }
     }
 
     @EventListener
     public void handleGameUpdateEvent(GameUpdateEvent event) {
         queueGameUpdate(event.getGame());
     }
+
+    @EventListener
+    public void handleGameRemovedEvent(GameRemovedEvent event) {
+        pendingGameUpdates.remove(event.getGameId());
+        lastBroadcasts.remove(event.getGameId());
+    }
+
+    private record Broadcast(long version, ObjectNode tree) {}
 }
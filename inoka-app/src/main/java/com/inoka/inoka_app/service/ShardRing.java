@@ -0,0 +1,47 @@
+package com.inoka.inoka_app.service;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/*
+ * Consistent-hash ring over the nodes of a cluster.
+ * Each node is placed at many points (virtual nodes) so keys spread evenly,
+ * and adding or removing a node only moves the keys that node gains or loses.
+ * Immutable once built, safe to read from any thread.
+ */
+final class ShardRing {
+    // Ring position --> Node base URL
+    private final TreeMap<Long, String> points = new TreeMap<>();
+
+    ShardRing(Collection<String> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) throw new IllegalArgumentException("A ring needs at least one node");
+        for (String node : nodes) {
+            for (int i = 0; i < virtualNodes; i++) points.put(hash(node + "#" + i), node);
+        }
+    }
+
+    // Node owning the key: the first point at or after the key's hash, wrapping around
+    String ownerOf(String key) {
+        Map.Entry<Long, String> point = points.ceilingEntry(hash(key));
+        return (point != null) ? point.getValue() : points.firstEntry().getValue();
+    }
+
+    /*
+     * 64-bit FNV-1a, finished with MurmurHash3's fmix64 so keys differing in one character land far apart
+     * Stable across JVMs and runs, every node must place every key identically
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93e54cb5ec5L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,260 @@
+package com.inoka.inoka_app.service;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/*
+ * Assigns every game, and every passcode lobby, to one owner node of the cluster with a consistent-hash ring.
+ * Game ids are drawn so they hash to the node creating the game, so any node can find a game's owner from its id alone.
+ * Public lobbies stay on the node the player reached, passcode lobbies live on the owner of the passcode.
+ * Requests, STOMP frames & broadcasts sent between nodes go over plain HTTP to /internal/shard on the target node,
+ * carrying the shared secret.
+ * With fewer than two nodes configured the router is disabled and every node owns everything.
+ */
+@Service
+public class ShardRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardRouter.class);
+    // Set on everything one node sends another, so it is handled where it lands and never forwarded again
+    public static final String FORWARDED_HEADER = "X-Inoka-Forwarded";
+    public static final String SECRET_HEADER = "X-Inoka-Shard-Secret";
+    public static final String INTERNAL_PATH = "/internal/shard";
+    private static final String LOBBY_KEY_PREFIX = "lobby:";
+    private static final int MAX_UNSEATED = 100_000;
+
+    private final boolean enabled;
+    private final String self;
+    private final List<String> peers;
+    private final ShardRing ring;
+    private final byte[] secret;
+    private final Duration timeout;
+    private final HttpClient httpClient;
+    // Player UUID --> Game UUID, for players seated in a game on another node
+    private final ConcurrentHashMap<String, String> remotePlayerGames = new ConcurrentHashMap<>();
+    // Player UUID --> When the answer that no node seats them stops being trusted, so unseated players don't ask every peer per frame
+    private final ConcurrentHashMap<String, Long> unseatedPlayers = new ConcurrentHashMap<>();
+    // Player UUID --> Lookup in flight, shared by everyone asking about the player meanwhile
+    private final ConcurrentHashMap<String, CompletableFuture<Optional<String>>> lookups = new ConcurrentHashMap<>();
+    private final long missTtlNanos;
+    // Node URL --> Single sender thread, so everything sent to one node arrives in the order it was sent
+    private final Map<String, ExecutorService> senders = new HashMap<>();
+
+    public ShardRouter(
+        @Value("${inoka.shard.self:}") String self,
+        @Value("${inoka.shard.nodes:}") String nodes,
+        @Value("${inoka.shard.virtual-nodes:128}") int virtualNodes,
+        @Value("${inoka.shard.secret:}") String secret,
+        @Value("${inoka.shard.timeout:2s}") Duration timeout,
+        @Value("${inoka.shard.miss-ttl:2s}") Duration missTtl
+    ) {
+        List<String> members = Arrays.stream(nodes.split(","))
+            .map(String::trim)
+            .filter(node -> !node.isEmpty())
+            .distinct()
+            .toList();
+        this.enabled = members.size() > 1;
+        this.self = self.trim();
+        this.timeout = timeout;
+        this.missTtlNanos = missTtl.toNanos();
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        if (!enabled) {
+            this.peers = List.of();
+            this.ring = null;
+            this.httpClient = null;
+            return;
+        }
+        if (!members.contains(this.self)) {
+            throw new IllegalStateException("inoka.shard.self (" + self + ") must be one of inoka.shard.nodes " + members);
+        }
+        if (secret.isEmpty()) {
+            throw new IllegalStateException("inoka.shard.secret must be set when inoka.shard.nodes lists more than one node");
+        }
+        this.peers = members.stream().filter(node -> !node.equals(this.self)).toList();
+        this.ring = new ShardRing(members, virtualNodes);
+        this.httpClient = HttpClient.newBuilder()
+            .connectTimeout(timeout)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+        for (String peer : peers) {
+            senders.put(peer, Executors.newSingleThreadExecutor(Thread.ofVirtual().name("shard-send-", 0).factory()));
+        }
+        logger.info("Sharding games across {} node(s) as {}", members.size(), this.self);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.values().forEach(ExecutorService::shutdown);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getSelf() {
+        return self;
+    }
+
+    public String ownerOfGame(String gameId) {
+        return (enabled && gameId != null) ? ring.ownerOf(gameId) : self;
+    }
+
+    public String ownerOfLobby(String passcode) {
+        return (enabled && !LobbyIndex.isPublic(passcode)) ? ring.ownerOf(LOBBY_KEY_PREFIX + passcode) : self;
+    }
+
+    public boolean isSelf(String node) {
+        return self.equals(node);
+    }
+
+    // A new game id owned by this node, expected tries equal the number of nodes
+    String newGameId() {
+        String id = UUID.randomUUID().toString();
+        while (enabled && !isSelf(ring.ownerOf(id))) id = UUID.randomUUID().toString();
+        return id;
+    }
+
+    /*
+     * Given the UUID of a player who is not seated in a game on this node,
+     * Return the UUID of the game they are seated in elsewhere, asking the other nodes if it is not known yet
+     * Blocks while the other nodes are asked, see locatePlayerGameAsync()
+     */
+    public Optional<String> locatePlayerGame(String playerId) {
+        return this.locatePlayerGameAsync(playerId).join();
+    }
+
+    /*
+     * As locatePlayerGame(), completing once the other nodes have answered
+     * Already complete if the answer is known, including a recent answer that no node seats the player
+     */
+    public CompletableFuture<Optional<String>> locatePlayerGameAsync(String playerId) {
+        if (!enabled || playerId == null) return CompletableFuture.completedFuture(Optional.empty());
+        String known = remotePlayerGames.get(playerId);
+        if (known != null) return CompletableFuture.completedFuture(Optional.of(known));
+        Long missExpires = unseatedPlayers.get(playerId);
+        if (missExpires != null) {
+            if (System.nanoTime() - missExpires < 0) return CompletableFuture.completedFuture(Optional.empty());
+            unseatedPlayers.remove(playerId, missExpires);
+        }
+
+        CompletableFuture<Optional<String>> lookup = new CompletableFuture<>();
+        CompletableFuture<Optional<String>> running = lookups.putIfAbsent(playerId, lookup);
+        if (running != null) return running;
+        this.askPeers(playerId).thenAccept(gameId -> {
+            if (gameId.isPresent()) this.rememberPlayerGame(playerId, gameId.get());
+            else this.rememberUnseated(playerId);
+            lookups.remove(playerId, lookup);
+            lookup.complete(gameId);
+        });
+        return lookup;
+    }
+
+    // Completes with the first game a peer seats the player in, or empty once every peer has answered or failed
+    private CompletableFuture<Optional<String>> askPeers(String playerId) {
+        String query = "/player-game?playerId=" + URLEncoder.encode(playerId, StandardCharsets.UTF_8);
+        CompletableFuture<Optional<String>> result = new CompletableFuture<>();
+        List<CompletableFuture<?>> answers = new ArrayList<>(peers.size());
+        for (String peer : peers) {
+            answers.add(httpClient.sendAsync(this.internalRequest(peer, query).GET().build(), HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (error != null) logger.debug("Node {} did not answer player lookup for {}", peer, playerId, error);
+                    else if (response.statusCode() == 200) result.complete(Optional.of(response.body()));
+                    return null;
+                }));
+        }
+        CompletableFuture.allOf(answers.toArray(CompletableFuture[]::new)).thenRun(() -> result.complete(Optional.empty()));
+        return result;
+    }
+
+    private void rememberUnseated(String playerId) {
+        long now = System.nanoTime();
+        // Expired answers are only dropped once there are many of them
+        if (unseatedPlayers.size() >= MAX_UNSEATED) unseatedPlayers.values().removeIf(expires -> now - expires >= 0);
+        unseatedPlayers.put(playerId, now + missTtlNanos);
+    }
+
+    public void rememberPlayerGame(String playerId, String gameId) {
+        if (!enabled) return;
+        unseatedPlayers.remove(playerId);
+        if (!isSelf(this.ownerOfGame(gameId))) remotePlayerGames.put(playerId, gameId);
+    }
+
+    public void forgetPlayer(String playerId) {
+        remotePlayerGames.remove(playerId);
+    }
+
+    // Request to the given path on another node's /internal/shard endpoints, carrying the shared secret
+    public HttpRequest.Builder internalRequest(String node, String pathAndQuery) {
+        return this.request(node, INTERNAL_PATH + pathAndQuery);
+    }
+
+    // Request to any path on another node, marked as forwarded
+    public HttpRequest.Builder request(String node, String pathAndQuery) {
+        return HttpRequest.newBuilder(URI.create(node + pathAndQuery))
+            .timeout(timeout)
+            .header(FORWARDED_HEADER, self)
+            .header(SECRET_HEADER, new String(secret, StandardCharsets.UTF_8));
+    }
+
+    // Sends and waits for the response, for requests a client is waiting on
+    public HttpResponse<byte[]> exchange(HttpRequest request) throws IOException, InterruptedException {
+        return httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /*
+     * Sends without waiting, in order with everything else sent to the same node
+     * Failures are logged & dropped, like a STOMP frame lost with its connection
+     * Returns a future completing with the response status, or -1 if the request failed
+     */
+    public CompletableFuture<Integer> sendInOrder(String node, HttpRequest request) {
+        ExecutorService sender = senders.get(node);
+        if (sender == null) return CompletableFuture.completedFuture(-1);
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            }
+            catch (IOException e) {
+                logger.warn("Could not reach node {}: {}", node, e.toString());
+                return -1;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }, sender);
+    }
+
+    public List<String> getPeers() {
+        return peers;
+    }
+
+    // Constant time, so the secret cannot be guessed from response times
+    public boolean isTrusted(String presentedSecret) {
+        return enabled && presentedSecret != null
+            && MessageDigest.isEqual(secret, presentedSecret.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,102 @@
+package com.inoka.inoka_app.simulation;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/*
+ * Monte Carlo balance runs of the clash rules, headless and without Spring.
+ * Plays millions of card-against-card duels and full games on a fork-join pool, then reports
+ * win rates and clash lengths per style/level matchup, damage distributions and clashes per game.
+ *
+ * Start it with ./gradlew simulate, sized with
+ *   -Dinoka.simulation.duels (default 1000000), -Dinoka.simulation.games (default 100000),
+ *   -Dinoka.simulation.players per full game (2-6, default 4), -Dinoka.simulation.add-sub-dice (default 6),
+ *   -Dinoka.simulation.seed, -Dinoka.simulation.parallelism (default one thread per core)
+ * A run is reproducible from its seed whatever the parallelism: the task tree always splits at the same points,
+ * and each subtree draws game seeds from its own split of the run's random stream.
+ */
+public final class BalanceSimulator {
+    // Games played by one leaf task, enough to amortize forking while keeping every core busy
+    static final int GAMES_PER_TASK = 256;
+
+    private BalanceSimulator() {
+    }
+
+    record Settings(long duelGames, long fullGames, int playersPerGame, int addSubDice, long seed) {
+    }
+
+    public static void main(String[] args) {
+        // Each duel game pits the 9 cards of two decks against each other
+        long duels = Long.getLong("inoka.simulation.duels", 1_000_000);
+        long games = Long.getLong("inoka.simulation.games", 100_000);
+        int players = Integer.getInteger("inoka.simulation.players", 4);
+        int addSubDice = Integer.getInteger("inoka.simulation.add-sub-dice", 6);
+        long seed = Long.getLong("inoka.simulation.seed", System.nanoTime());
+        int parallelism = Integer.getInteger("inoka.simulation.parallelism", Runtime.getRuntime().availableProcessors());
+        if (players < 2 || players > 6) throw new IllegalArgumentException("inoka.simulation.players must be between 2 and 6");
+        if (addSubDice < 1) throw new IllegalArgumentException("inoka.simulation.add-sub-dice must be at least 1");
+
+        Settings settings = new Settings((duels + 8) / 9, games, players, addSubDice, seed);
+        System.out.printf("Simulating %,d duels and %,d games of %d players, add/sub dice d%d, seed %d, %d threads%n",
+            settings.duelGames() * 9, games, players, addSubDice, seed, parallelism);
+        long start = System.nanoTime();
+        SimulationStats stats = run(settings, parallelism);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        stats.report(System.out);
+        System.out.printf("%nFinished in %.1fs%n", seconds);
+    }
+
+    static SimulationStats run(Settings settings, int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            SplittableRandom random = new SplittableRandom(settings.seed());
+            // Duels and full games each get their own stream, so sizing one never changes the other's results
+            SplittableRandom fullGameRandom = random.split();
+            SimulationStats stats = pool.invoke(new SimulationTask(settings, false, 0, settings.duelGames(), random));
+            return stats.merge(pool.invoke(new SimulationTask(settings, true, 0, settings.fullGames(), fullGameRandom)));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /*
+     * Plays games [from, to), halving the range until it fits one leaf
+     * The left half takes a split of the stream and the right half carries on with it
+     */
+    private static final class SimulationTask extends RecursiveTask<SimulationStats> {
+        private final Settings settings;
+        private final boolean fullGames;
+        private final long from;
+        private final long to;
+        private final SplittableRandom random;
+
+        SimulationTask(Settings settings, boolean fullGames, long from, long to, SplittableRandom random) {
+            this.settings = settings;
+            this.fullGames = fullGames;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected SimulationStats compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                SimulationStats stats = new SimulationStats();
+                for (long i = from; i < to; i++) {
+                    if (fullGames) {
+                        SimulatedGames.playFullGame(random.nextLong(), settings.playersPerGame(), settings.addSubDice(), random, stats);
+                    } else {
+                        SimulatedGames.playDuels(random.nextLong(), settings.addSubDice(), stats);
+                    }
+                }
+                return stats;
+            }
+            long mid = (from + to) >>> 1;
+            SimulationTask left = new SimulationTask(settings, fullGames, from, mid, random.split());
+            left.fork();
+            SimulationStats right = new SimulationTask(settings, fullGames, mid, to, random).compute();
+            return right.merge(left.join());
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package com.inoka.inoka_app.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.inoka.inoka_app.model.Card;
+import com.inoka.inoka_app.model.Game;
+import com.inoka.inoka_app.model.Player;
+
+/*
+ * Plays games headless on the real Game rules, in the order GameService applies them,
+ * with no mailbox, journal or broadcasts in between.
+ * Rolls come from each game's own seeded source; the choices players make
+ * (which card to play, whom to attack) come from a separate stream so they never shift the rolls.
+ */
+final class SimulatedGames {
+    // Guards against a clash that never ends, e.g. only 0-damage hits
+    static final int MAX_TURNS_PER_CLASH = 10_000;
+    private static final int STONES_TO_WIN = 3;
+
+    private SimulatedGames() {
+    }
+
+    /*
+     * Given a game seed,
+     * deal two decks and duel their cards slot by slot: each pair clashes until one card is knocked out
+     * Records 9 duels and every hit dealt in them
+     */
+    static void playDuels(long seed, int addSubDice, SimulationStats stats) {
+        Game game = new Game("duel", "", seed);
+        game.setAddSubDice(addSubDice);
+        Player first = new Player("first", "First");
+        Player second = new Player("second", "Second");
+        game.addPlayer(first);
+        game.addPlayer(second);
+        List<Card> firstDeck = first.getDeck();
+        List<Card> secondDeck = second.getDeck();
+
+        for (int i = 0; i < firstDeck.size(); i++) {
+            Card firstCard = firstDeck.get(i);
+            Card secondCard = secondDeck.get(i);
+            game.playCardFromDeck(first.getId(), firstCard.getId());
+            game.playCardFromDeck(second.getId(), secondCard.getId());
+            game.resetInitiativeValue();
+            game.rollPlayerInitiative(first.getId());
+            game.rollPlayerInitiative(second.getId());
+
+            int turns = 0;
+            String knockedOut = null;
+            while (knockedOut == null && turns < MAX_TURNS_PER_CLASH) {
+                game.determineNextInitiativeValue();
+                boolean firstDeals = first.getId().equals(game.getCurrentPlayerId());
+                String receiving = firstDeals ? second.getId() : first.getId();
+                int dealt = game.dealDamage(game.getCurrentPlayerId(), receiving);
+                stats.recordHit(firstDeals ? firstCard : secondCard, firstDeals ? secondCard : firstCard, dealt);
+                turns++;
+                if (game.getPlayerCardInPlay(receiving).getCurHp() == 0) knockedOut = receiving;
+            }
+            if (knockedOut != null) {
+                stats.recordDuel(firstCard, secondCard, knockedOut.equals(second.getId()), turns);
+            } else {
+                stats.recordUndecidedDuel();
+            }
+            game.removeAllCardsFromPlay();
+        }
+    }
+
+    /*
+     * Given a game seed and a source for players' choices,
+     * play a full game until a player holds 3 sacred stones,
+     * or fewer than two players have cards left to start another clash
+     * Players put a random card in play, attack a random opponent and never skip or forfeit with cards left
+     */
+    static void playFullGame(long seed, int numPlayers, int addSubDice, SplittableRandom choices, SimulationStats stats) {
+        Game game = new Game("game", "", seed);
+        game.setAddSubDice(addSubDice);
+        List<Player> players = new ArrayList<>(numPlayers);
+        for (int i = 0; i < numPlayers; i++) {
+            Player player = new Player("player-" + i, "Player " + i);
+            game.addPlayer(player);
+            players.add(player);
+        }
+
+        int clashes = 0;
+        int turns = 0;
+        boolean finished = false;
+        List<String> targets = new ArrayList<>(numPlayers);
+        while (!finished) {
+            // Drawing cards, a new clash starts with every card from the last one out of play
+            game.removeAllCardsFromPlay();
+            for (Player player : players) playRandomCard(game, player, choices, stats);
+            if (game.numCardsInPlay() < 2) break;
+            clashes++;
+
+            // Initiative is re-rolled by everyone with a card in play
+            game.resetInitiativeValue();
+            for (Player player : players) {
+                if (game.hasCardInPlay(player.getId())) game.rollPlayerInitiative(player.getId());
+                else game.removePlayerFromInitiative(player);
+            }
+
+            String winner = null;
+            for (int clashTurns = 0; winner == null && clashTurns < MAX_TURNS_PER_CLASH; clashTurns++) {
+                // Last player standing wins the clash
+                if (game.numCardsInPlay() == 1) {
+                    winner = game.getCardsInPlay().keySet().iterator().next();
+                    break;
+                }
+                game.determineNextInitiativeValue();
+                String dealing = game.getCurrentPlayerId();
+                targets.clear();
+                for (Player player : players) {
+                    if (!player.getId().equals(dealing) && game.hasCardInPlay(player.getId())) targets.add(player.getId());
+                }
+                String receiving = targets.get(choices.nextInt(targets.size()));
+                Card dealingCard = game.getPlayerCardInPlay(dealing);
+                int dealt = game.dealDamage(dealing, receiving);
+                Card receivingCard = game.getPlayerCardInPlay(receiving);
+                stats.recordHit(dealingCard, receivingCard, dealt);
+                turns++;
+                if (receivingCard.getCurHp() > 0) continue;
+
+                // Knockout: the card leaves play, its player replaces it or forfeits the clash
+                game.removeCardInPlay(receiving);
+                if (game.pickUpKnockout(dealing)) {
+                    winner = dealing;
+                    break;
+                }
+                Player replacing = game.getPlayer(receiving);
+                if (!playRandomCard(game, replacing, choices, stats)) game.removePlayerFromInitiative(replacing);
+            }
+
+            if (winner != null) {
+                stats.recordClashWin(game.getPlayerCardInPlay(winner));
+                finished = game.getPlayer(winner).giveSacredStone() == STONES_TO_WIN;
+            }
+        }
+        stats.recordGame(finished, clashes, turns);
+    }
+
+    // Returns false if the player has no cards left
+    private static boolean playRandomCard(Game game, Player player, SplittableRandom choices, SimulationStats stats) {
+        if (player.deckSize() == 0) return false;
+        List<Card> deck = player.getDeck();
+        Card card = deck.get(choices.nextInt(deck.size()));
+        game.playCardFromDeck(player.getId(), card.getId());
+        stats.recordCardPlayed(card);
+        return true;
+    }
+}
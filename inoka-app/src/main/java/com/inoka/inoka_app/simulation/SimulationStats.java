@@ -0,0 +1,199 @@
+package com.inoka.inoka_app.simulation;
+
+import java.io.PrintStream;
+
+import com.inoka.inoka_app.model.Card;
+import com.inoka.inoka_app.model.CardStyle;
+
+/*
+ * Counts gathered by one fork-join leaf of a simulation run, merged up the task tree.
+ * Card kinds are indexed style-major: ATTACKER 1-3, DEFENDER 1-3, TRICKSTER 1-3.
+ * Plain arrays rather than maps so a leaf records millions of events without allocating.
+ * Not thread-safe, each leaf fills its own instance.
+ */
+final class SimulationStats {
+    static final int STYLES = CardStyle.values().length;
+    static final int LEVELS = 3;
+    static final int CARD_KINDS = STYLES * LEVELS;
+    // Histogram buckets, the last one also counts everything above it
+    static final int DAMAGE_BUCKETS = 64;
+    static final int LENGTH_BUCKETS = 64;
+
+    // Duels: one card against another until either is knocked out, [row card][column card]
+    final long[] duels = new long[CARD_KINDS * CARD_KINDS];
+    final long[] duelWins = new long[CARD_KINDS * CARD_KINDS];
+    final long[] duelTurns = new long[CARD_KINDS * CARD_KINDS];
+    long duelsUndecided;
+    final long[] duelLengths = new long[LENGTH_BUCKETS];
+
+    // Every hit dealt, duels & full games alike, [dealing card][receiving style][damage]
+    final long[] damage = new long[CARD_KINDS * STYLES * DAMAGE_BUCKETS];
+
+    // Full games played to 3 sacred stones
+    long games;
+    long gamesFinished;
+    long gameClashes;
+    long gameTurns;
+    final long[] clashesPerGame = new long[LENGTH_BUCKETS];
+    // Cards put in play, and the card in play of each clash winner
+    final long[] cardsPlayed = new long[CARD_KINDS];
+    final long[] clashWins = new long[CARD_KINDS];
+
+    static int kind(Card card) {
+        return card.getStyle().ordinal() * LEVELS + (card.getLevel() - 1);
+    }
+
+    private static String kindName(int kind) {
+        return CardStyle.values()[kind / LEVELS] + " " + (kind % LEVELS + 1);
+    }
+
+    private static int bucket(int value, int buckets) {
+        return Math.min(value, buckets - 1);
+    }
+
+    void recordHit(Card dealing, Card receiving, int dealt) {
+        damage[(kind(dealing) * STYLES + receiving.getStyle().ordinal()) * DAMAGE_BUCKETS + bucket(dealt, DAMAGE_BUCKETS)]++;
+    }
+
+    // Recorded from both cards' side, so each row of the matchup table is a complete picture
+    void recordDuel(Card first, Card second, boolean firstWon, int turns) {
+        int firstKind = kind(first);
+        int secondKind = kind(second);
+        duels[firstKind * CARD_KINDS + secondKind]++;
+        duels[secondKind * CARD_KINDS + firstKind]++;
+        duelWins[firstWon ? firstKind * CARD_KINDS + secondKind : secondKind * CARD_KINDS + firstKind]++;
+        duelTurns[firstKind * CARD_KINDS + secondKind] += turns;
+        duelTurns[secondKind * CARD_KINDS + firstKind] += turns;
+        duelLengths[bucket(turns, LENGTH_BUCKETS)]++;
+    }
+
+    void recordUndecidedDuel() {
+        duelsUndecided++;
+    }
+
+    void recordCardPlayed(Card card) {
+        cardsPlayed[kind(card)]++;
+    }
+
+    void recordClashWin(Card winningCard) {
+        clashWins[kind(winningCard)]++;
+    }
+
+    void recordGame(boolean finished, int clashes, int turns) {
+        games++;
+        if (finished) gamesFinished++;
+        gameClashes += clashes;
+        gameTurns += turns;
+        clashesPerGame[bucket(clashes, LENGTH_BUCKETS)]++;
+    }
+
+    long totalDuels() {
+        long total = 0;
+        for (long count : duels) total += count;
+        // Every duel is counted once per side
+        return total / 2;
+    }
+
+    SimulationStats merge(SimulationStats other) {
+        add(duels, other.duels);
+        add(duelWins, other.duelWins);
+        add(duelTurns, other.duelTurns);
+        duelsUndecided += other.duelsUndecided;
+        add(duelLengths, other.duelLengths);
+        add(damage, other.damage);
+        games += other.games;
+        gamesFinished += other.gamesFinished;
+        gameClashes += other.gameClashes;
+        gameTurns += other.gameTurns;
+        add(clashesPerGame, other.clashesPerGame);
+        add(cardsPlayed, other.cardsPlayed);
+        add(clashWins, other.clashWins);
+        return this;
+    }
+
+    private static void add(long[] into, long[] from) {
+        for (int i = 0; i < into.length; i++) into[i] += from[i];
+    }
+
+    // Smallest value at or below which the given fraction of the histogram's counts fall
+    private static int percentile(long[] histogram, int from, int buckets, double fraction) {
+        long total = 0;
+        for (int i = 0; i < buckets; i++) total += histogram[from + i];
+        long seen = 0;
+        for (int i = 0; i < buckets; i++) {
+            seen += histogram[from + i];
+            if (total > 0 && seen >= Math.ceil(total * fraction)) return i;
+        }
+        return 0;
+    }
+
+    private static double mean(long[] histogram, int from, int buckets) {
+        long total = 0;
+        long sum = 0;
+        for (int i = 0; i < buckets; i++) {
+            total += histogram[from + i];
+            sum += histogram[from + i] * i;
+        }
+        return (total > 0) ? (double) sum / total : 0;
+    }
+
+    private static double ratio(long part, long whole) {
+        return (whole > 0) ? (double) part / whole : 0;
+    }
+
+    void report(PrintStream out) {
+        if (totalDuels() > 0) {
+            out.printf("%nDuels: %,d (%,d undecided), length p50 %d / p90 %d / p99 %d turns%n", totalDuels(), duelsUndecided,
+                percentile(duelLengths, 0, LENGTH_BUCKETS, 0.5), percentile(duelLengths, 0, LENGTH_BUCKETS, 0.9), percentile(duelLengths, 0, LENGTH_BUCKETS, 0.99));
+            out.println("Win rate of row card against column card:");
+            printMatrix(out, (row, column) -> String.format("%5.1f%%", 100 * ratio(duelWins[row * CARD_KINDS + column], duels[row * CARD_KINDS + column])));
+            out.println("Mean turns per duel:");
+            printMatrix(out, (row, column) -> String.format("%6.2f", ratio(duelTurns[row * CARD_KINDS + column], duels[row * CARD_KINDS + column])));
+        }
+
+        out.println();
+        out.println("Damage per hit, dealing card against receiving style (mean / p50 / p90):");
+        out.printf("%-12s", "");
+        for (CardStyle style : CardStyle.values()) out.printf("%22s", style);
+        out.println();
+        for (int kind = 0; kind < CARD_KINDS; kind++) {
+            out.printf("%-12s", kindName(kind));
+            for (int style = 0; style < STYLES; style++) {
+                int from = (kind * STYLES + style) * DAMAGE_BUCKETS;
+                out.printf("%22s", String.format("%.2f / %d / %d", mean(damage, from, DAMAGE_BUCKETS),
+                    percentile(damage, from, DAMAGE_BUCKETS, 0.5), percentile(damage, from, DAMAGE_BUCKETS, 0.9)));
+            }
+            out.println();
+        }
+
+        if (games > 0) {
+            out.printf("%nFull games: %,d (%,d finished, the rest ran out of cards), mean %.2f clashes & %.1f turns, clashes p50 %d / p90 %d%n",
+                games, gamesFinished, ratio(gameClashes, games), ratio(gameTurns, games),
+                percentile(clashesPerGame, 0, LENGTH_BUCKETS, 0.5), percentile(clashesPerGame, 0, LENGTH_BUCKETS, 0.9));
+            out.println("Clashes won per card put in play:");
+            for (int kind = 0; kind < CARD_KINDS; kind++) {
+                out.printf("%-12s %5.1f%%  (%,d played)%n", kindName(kind), 100 * ratio(clashWins[kind], cardsPlayed[kind]), cardsPlayed[kind]);
+            }
+        }
+    }
+
+    private interface Cell {
+        String format(int row, int column);
+    }
+
+    private static void printMatrix(PrintStream out, Cell cell) {
+        out.printf("%-12s", "");
+        for (int column = 0; column < CARD_KINDS; column++) out.printf("%9s", shortName(column));
+        out.println();
+        for (int row = 0; row < CARD_KINDS; row++) {
+            out.printf("%-12s", kindName(row));
+            for (int column = 0; column < CARD_KINDS; column++) out.printf("%9s", cell.format(row, column));
+            out.println();
+        }
+    }
+
+    // e.g. "ATT 2"
+    private static String shortName(int kind) {
+        return CardStyle.values()[kind / LEVELS].name().substring(0, 3) + " " + (kind % LEVELS + 1);
+    }
+}
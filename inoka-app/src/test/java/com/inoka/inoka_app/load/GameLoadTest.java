@@ -0,0 +1,226 @@
+package com.inoka.inoka_app.load;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.converter.CompositeMessageConverter;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.converter.StringMessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+import org.springframework.web.socket.sockjs.client.SockJsClient;
+import org.springframework.web.socket.sockjs.client.WebSocketTransport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.inoka.inoka_app.service.GameService;
+
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/*
+ * Plays complete games against a running app the same way browsers do:
+ * players are registered over REST, connect to /ws with their JWT, and react to game broadcasts.
+ * Players are kept in an in-memory H2 database instead of MySQL.
+ *
+ * Excluded from the normal test run, start it with ./gradlew loadTest
+ * Sized with -Dinoka.load.players (rounded down to full tables of 6) and -Dinoka.load.timeout-seconds
+ */
+@Tag("load")
+@SpringBootTest(
+    webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = {
+        "spring.datasource.url=jdbc:h2:mem:inoka-load;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.jpa.show-sql=false",
+        "jwt.secret=inoka-load-test-secret-inoka-load-test-secret",
+        "jwt.expiration=3600000",
+        "inoka.games.max-live=1000000",
+        "inoka.broadcast.delta-enabled=false"
+    }
+)
+public class GameLoadTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(GameLoadTest.class);
+    private static final int PLAYERS_PER_TABLE = 6;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private GameService gameService;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Test
+    public void playCompleteGames() throws Exception {
+        int tableCount = Math.max(1, Integer.getInteger("inoka.load.players", 1200) / PLAYERS_PER_TABLE);
+        long timeoutSeconds = Long.getLong("inoka.load.timeout-seconds", 600);
+
+        RestClient restClient = RestClient.create("http://localhost:" + port + "/inoka");
+        WebSocketStompClient stompClient = new WebSocketStompClient(new SockJsClient(List.of(new WebSocketTransport(new StandardWebSocketClient()))));
+        // Plain text for ids, like the Angular client sends, JSON for everything else
+        stompClient.setMessageConverter(new CompositeMessageConverter(List.of(new StringMessageConverter(), new MappingJackson2MessageConverter())));
+        LoadStats stats = new LoadStats(new SimpleMeterRegistry());
+        CountDownLatch done = new CountDownLatch(tableCount);
+
+        // Register players
+        List<Map<String, Object>> registrations = this.runAll(tableCount * PLAYERS_PER_TABLE, i -> this.registerPlayer(restClient, "load-" + i));
+
+        // Baseline before any game exists, sessions are opened here so they are not counted per game
+        List<StompSession> sessions = this.runAll(registrations.size(), i -> this.connect(stompClient, (String) registrations.get(i).get("token")));
+        long heapBefore = usedHeapAfterGc();
+
+        // Seat players 6 at a time under a passcode per table
+        List<LoadTable> tables = this.runAll(tableCount, t -> {
+            List<LoadTable.Seat> seats = new ArrayList<>(PLAYERS_PER_TABLE);
+            String gameId = null;
+            for (int s = 0; s < PLAYERS_PER_TABLE; s++) {
+                int i = t * PLAYERS_PER_TABLE + s;
+                String token = (String) registrations.get(i).get("token");
+                @SuppressWarnings("unchecked")
+                String playerId = (String) ((Map<String, Object>) registrations.get(i).get("player")).get("id");
+                gameId = restClient.post().uri("/game/create?passcode={passcode}", "load-table-" + t)
+                    .header("Authorization", "Bearer " + token)
+                    .retrieve().body(String.class);
+                seats.add(new LoadTable.Seat(playerId, token, sessions.get(i)));
+            }
+            return new LoadTable(gameId, seats, restClient, stats, done);
+        });
+        long heapWithGames = usedHeapAfterGc();
+        int liveGames = gameService.numLiveGames();
+
+        for (LoadTable table : tables) this.subscribe(table, stats);
+        long started = System.nanoTime();
+        for (LoadTable table : tables) table.start();
+
+        boolean allDone = done.await(timeoutSeconds, TimeUnit.SECONDS);
+        double elapsedSeconds = (System.nanoTime() - started) / 1e9;
+
+        this.report(tables, stats, elapsedSeconds, liveGames, heapWithGames - heapBefore);
+        for (StompSession session : sessions) session.disconnect();
+        executor.shutdown();
+
+        long finished = tables.stream().filter(t -> t.getOutcome() == LoadTable.Outcome.FINISHED || t.getOutcome() == LoadTable.Outcome.DECK_EXHAUSTED).count();
+        Assertions.assertTrue(finished > 0, "No table played through to the end");
+        if (!allDone) logger.warn("Timed out after {}s with {} of {} tables still playing", timeoutSeconds, done.getCount(), tableCount);
+    }
+
+    private Map<String, Object> registerPlayer(RestClient restClient, String name) {
+        return restClient.post().uri("/player/add")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of("name", name))
+            .retrieve()
+            .body(new ParameterizedTypeReference<Map<String, Object>>() {});
+    }
+
+    private StompSession connect(WebSocketStompClient stompClient, String token) throws Exception {
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        // Only the Angular dev server's origin is allowed
+        handshakeHeaders.setOrigin("http://localhost:4200");
+        StompHeaders connectHeaders = new StompHeaders();
+        connectHeaders.add("Authorization", "Bearer " + token);
+        return stompClient.connectAsync("http://localhost:" + port + "/ws", handshakeHeaders, connectHeaders, new StompSessionHandlerAdapter() {})
+            .get(30, TimeUnit.SECONDS);
+    }
+
+    /*
+     * Every seat subscribes like a browser would, the host's copy drives the table
+     * Updates are handed off the socket thread since bots make blocking REST calls
+     */
+    private void subscribe(LoadTable table, LoadStats stats) {
+        List<LoadTable.Seat> seats = table.getSeats();
+        for (int s = 0; s < seats.size(); s++) {
+            boolean host = (s == 0);
+            seats.get(s).session().subscribe("/topic/game/" + table.getGameId(), new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return JsonNode.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    stats.broadcasts.increment();
+                    if (host) executor.execute(() -> table.onUpdate((JsonNode) payload));
+                }
+            });
+        }
+    }
+
+    private void report(List<LoadTable> tables, LoadStats stats, double elapsedSeconds, int liveGames, long heapForGames) {
+        Map<LoadTable.Outcome, Long> outcomes = new EnumMap<>(LoadTable.Outcome.class);
+        long clashes = 0;
+        for (LoadTable table : tables) {
+            if (table.getOutcome() != null) outcomes.merge(table.getOutcome(), 1L, Long::sum);
+            clashes += table.getClashes();
+        }
+        long completed = outcomes.getOrDefault(LoadTable.Outcome.FINISHED, 0L) + outcomes.getOrDefault(LoadTable.Outcome.DECK_EXHAUSTED, 0L);
+
+        StringBuilder percentiles = new StringBuilder();
+        for (ValueAtPercentile value : stats.actionLatency.takeSnapshot().percentileValues()) {
+            percentiles.append(String.format(" p%s=%.1fms", value.percentile() * 100, value.value(TimeUnit.MILLISECONDS)));
+        }
+
+        logger.info("Load run: {} tables ({} players) in {}s", tables.size(), tables.size() * PLAYERS_PER_TABLE, String.format("%.1f", elapsedSeconds));
+        logger.info("  Outcomes: {}, still playing: {}", outcomes, tables.size() - outcomes.values().stream().mapToLong(Long::longValue).sum());
+        logger.info("  Throughput: {} games/s, {} clashes/s, {} actions/s, {} broadcasts received/s",
+            String.format("%.2f", completed / elapsedSeconds), String.format("%.1f", clashes / elapsedSeconds),
+            String.format("%.0f", stats.actions.sum() / elapsedSeconds), String.format("%.0f", stats.broadcasts.sum() / elapsedSeconds));
+        logger.info("  Action to broadcast latency:{} max={}ms (n={})", percentiles,
+            String.format("%.1f", stats.actionLatency.max(TimeUnit.MILLISECONDS)), stats.actionLatency.count());
+        logger.info("  Rejected REST calls: {}", stats.rejected.sum());
+        logger.info("  Heap per game (lobby with 6 players, approximate): {} KiB over {} live games",
+            (liveGames > 0) ? heapForGames / liveGames / 1024 : 0, liveGames);
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    @FunctionalInterface
+    private interface IndexedTask<T> {
+        T run(int index) throws Exception;
+    }
+
+    // Runs count tasks concurrently on virtual threads, returning their results in index order
+    private <T> List<T> runAll(int count, IndexedTask<T> task) throws Exception {
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int index = i;
+            futures.add(executor.submit((Callable<T>) () -> task.run(index)));
+        }
+        List<T> results = new ArrayList<>(count);
+        for (Future<T> future : futures) results.add(future.get(5, TimeUnit.MINUTES));
+        return results;
+    }
+}
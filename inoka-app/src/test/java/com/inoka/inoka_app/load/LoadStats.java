@@ -0,0 +1,30 @@
+package com.inoka.inoka_app.load;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/*
+ * Counters shared by every table of a load run
+ */
+class LoadStats {
+    // From a bot's action to the next broadcast of its game
+    final Timer actionLatency;
+    // REST calls and STOMP messages sent by bots
+    final LongAdder actions = new LongAdder();
+    // REST calls answered with an error status
+    final LongAdder rejected = new LongAdder();
+    // Broadcasts received, counted once per subscribed player
+    final LongAdder broadcasts = new LongAdder();
+
+    LoadStats(MeterRegistry meterRegistry) {
+        this.actionLatency = Timer.builder("inoka.load.action.latency")
+            .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+            // Percentiles cover the whole run rather than the default sliding window
+            .distributionStatisticExpiry(Duration.ofHours(1))
+            .distributionStatisticBufferLength(1)
+            .register(meterRegistry);
+    }
+}
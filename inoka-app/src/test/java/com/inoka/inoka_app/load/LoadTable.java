@@ -0,0 +1,265 @@
+package com.inoka.inoka_app.load;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.web.client.RestClient;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/*
+ * One table of bot players driven by the game broadcasts it receives.
+ * Bots act the way the Angular client does, but without its delays:
+ * each broadcast state is answered with the REST calls and STOMP messages the playmat would send.
+ * Updates are handled one at a time per table.
+ */
+class LoadTable {
+    private static final Logger logger = LoggerFactory.getLogger(LoadTable.class);
+
+    record Seat(String playerId, String token, StompSession session) {}
+
+    private final String gameId;
+    // First seat is the host, which also sends the table-wide messages
+    private final List<Seat> seats;
+    private final RestClient restClient;
+    private final LoadStats stats;
+    private final CountDownLatch done;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long lastVersion = -1;
+    private String phaseState;
+    // Actions already sent during the current state, so repeated broadcasts are not answered twice
+    private final Set<String> acted = new HashSet<>();
+    // System.nanoTime() of the oldest action not yet followed by a broadcast, 0 if none
+    private long pendingSince;
+    private int clashes;
+    private volatile Outcome outcome;
+
+    enum Outcome { FINISHED, DECK_EXHAUSTED, FAILED }
+
+    LoadTable(String gameId, List<Seat> seats, RestClient restClient, LoadStats stats, CountDownLatch done) {
+        this.gameId = gameId;
+        this.seats = seats;
+        this.restClient = restClient;
+        this.stats = stats;
+        this.done = done;
+    }
+
+    String getGameId() {
+        return gameId;
+    }
+
+    List<Seat> getSeats() {
+        return seats;
+    }
+
+    Outcome getOutcome() {
+        return outcome;
+    }
+
+    int getClashes() {
+        return clashes;
+    }
+
+    // Every bot marks itself ready once the whole table is subscribed
+    void start() {
+        lock.lock();
+        try {
+            for (Seat seat : seats) this.send(seat, "/app/playerReady", Map.of("playerId", seat.playerId()));
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    void onUpdate(JsonNode game) {
+        lock.lock();
+        try {
+            long version = game.path("version").asLong();
+            // Broadcasts are handled off the socket thread and may arrive out of order
+            if (outcome != null || version <= lastVersion) return;
+            lastVersion = version;
+            if (pendingSince != 0) {
+                stats.actionLatency.record(System.nanoTime() - pendingSince, TimeUnit.NANOSECONDS);
+                pendingSince = 0;
+            }
+
+            String state = game.path("state").asText();
+            if (!state.equals(phaseState)) {
+                phaseState = state;
+                acted.clear();
+            }
+            this.act(state, game);
+        }
+        catch (RuntimeException e) {
+            logger.warn("Table {} failed", gameId, e);
+            this.finish(Outcome.FAILED);
+        }
+        finally {
+            lock.unlock();
+        }
+    }
+
+    private void act(String state, JsonNode game) {
+        JsonNode players = game.path("players");
+        JsonNode cardsInPlay = game.path("cardsInPlay");
+        Seat host = seats.get(0);
+
+        switch (state) {
+            case "WAITING_FOR_PLAYERS" -> {
+                if (players.size() < seats.size()) return;
+                for (JsonNode player : players) if (!player.path("ready").asBoolean()) return;
+                if (once("start")) this.put(host, "/game/start", gameId);
+            }
+            case "DRAWING_CARDS" -> {
+                for (Seat seat : seats) {
+                    if (cardsInPlay.has(seat.playerId())) continue;
+                    JsonNode deck = players.path(seat.playerId()).path("deck");
+                    if (deck.isEmpty()) {
+                        this.finish(Outcome.DECK_EXHAUSTED);
+                        return;
+                    }
+                    if (once("play:" + seat.playerId())) {
+                        this.send(seat, "/app/playCard", Map.of("playerId", seat.playerId(), "cardId", deck.get(0).path("id").asText()));
+                    }
+                }
+            }
+            case "COUNT_DOWN" -> {
+                if (once("clashStart")) this.send(host, "/app/clashStart", Map.of("gameId", gameId));
+            }
+            case "CLASH_ROLL_INIT" -> {
+                Set<String> rolled = initiativePlayers(game);
+                for (Seat seat : seats) {
+                    if (!rolled.contains(seat.playerId()) && once("roll:" + seat.playerId())) {
+                        this.get(seat, "/player/rollinit?id=" + seat.playerId());
+                    }
+                }
+            }
+            case "CLASH_PLAYER_TURN" -> {
+                if (cardsInPlay.size() == 1) {
+                    String winnerId = cardsInPlay.properties().iterator().next().getKey();
+                    if (once("won")) this.put(seat(winnerId), "/player/wonClash", winnerId);
+                    return;
+                }
+                String currentId = game.path("initiativeMap").path(game.path("currentInitiativeValue").asText()).asText(null);
+                if (currentId == null || !cardsInPlay.has(currentId)) return;
+                if (once("action")) {
+                    this.send(seat(currentId), "/app/clashAction", Map.of("userId", currentId, "targetId", nextTarget(currentId, cardsInPlay)));
+                }
+            }
+            case "CLASH_PROCESSING_DECISION" -> {
+                boolean knockout = false;
+                for (Map.Entry<String, JsonNode> card : cardsInPlay.properties()) {
+                    if (card.getValue().path("curHp").asInt() > 0) continue;
+                    knockout = true;
+                    if (once("remove:" + card.getKey())) this.delete(seat(card.getKey()), "/player/cardInPlay?id=" + card.getKey());
+                }
+                if (!knockout) {
+                    if (once("processed")) this.send(host, "/app/clashProcessed", Map.of("gameId", gameId));
+                    return;
+                }
+                String dealingId = game.path("lastAction").path("dealingPlayerId").asText();
+                Seat dealer = seatOrNull(dealingId);
+                if (dealer != null && once("knockout")) this.send(dealer, "/app/gotKnockout", Map.of("playerId", dealingId));
+            }
+            case "CLASH_PLAYER_REPLACING_CARD" -> {
+                // Bots never replace a lost card, they forfeit the rest of the clash
+                for (String playerId : initiativePlayers(game)) {
+                    if (!cardsInPlay.has(playerId) && once("forfeit:" + playerId)) {
+                        this.send(seat(playerId), "/app/clashForfeit", Map.of("playerId", playerId));
+                    }
+                }
+            }
+            case "CLASH_CONCLUDED" -> {
+                if (once("clashNew")) {
+                    clashes++;
+                    this.send(host, "/app/clashNew", Map.of("gameId", gameId));
+                }
+            }
+            case "FINISHED" -> this.finish(Outcome.FINISHED);
+            default -> { }
+        }
+    }
+
+    // Marks an action as taken in the current state, returns false if it already was
+    private boolean once(String action) {
+        return acted.add(action);
+    }
+
+    private void finish(Outcome result) {
+        if (outcome != null) return;
+        outcome = result;
+        done.countDown();
+    }
+
+    private static Set<String> initiativePlayers(JsonNode game) {
+        Set<String> result = new HashSet<>();
+        for (JsonNode playerId : game.path("initiativeMap")) result.add(playerId.asText());
+        return result;
+    }
+
+    // The first other player after the dealer, in seat order, who still has a card in play
+    private String nextTarget(String dealingId, JsonNode cardsInPlay) {
+        int start = 0;
+        for (int i = 0; i < seats.size(); i++) if (seats.get(i).playerId().equals(dealingId)) start = i;
+        for (int i = 1; i < seats.size(); i++) {
+            String candidate = seats.get((start + i) % seats.size()).playerId();
+            if (cardsInPlay.has(candidate)) return candidate;
+        }
+        return "null";
+    }
+
+    private Seat seat(String playerId) {
+        Seat seat = seatOrNull(playerId);
+        if (seat == null) throw new IllegalStateException("Player " + playerId + " is not seated at table " + gameId);
+        return seat;
+    }
+
+    private Seat seatOrNull(String playerId) {
+        for (Seat seat : seats) if (seat.playerId().equals(playerId)) return seat;
+        return null;
+    }
+
+    private void markSent() {
+        stats.actions.increment();
+        if (pendingSince == 0) pendingSince = System.nanoTime();
+    }
+
+    private void send(Seat seat, String destination, Object payload) {
+        this.markSent();
+        seat.session().send(destination, payload);
+    }
+
+    // REST calls are answered by the next broadcast like any other action, error statuses are only counted
+    private void put(Seat seat, String path, String body) {
+        this.markSent();
+        this.exchange(restClient.put().uri(path).header("Authorization", "Bearer " + seat.token())
+            .contentType(MediaType.TEXT_PLAIN).body(body));
+    }
+
+    private void get(Seat seat, String path) {
+        this.markSent();
+        this.exchange(restClient.get().uri(path).header("Authorization", "Bearer " + seat.token()));
+    }
+
+    private void delete(Seat seat, String path) {
+        this.markSent();
+        this.exchange(restClient.delete().uri(path).header("Authorization", "Bearer " + seat.token()));
+    }
+
+    private void exchange(RestClient.RequestHeadersSpec<?> request) {
+        request.retrieve()
+            .onStatus(HttpStatusCode::isError, (req, response) -> stats.rejected.increment())
+            .toBodilessEntity();
+    }
+}
@@ -0,0 +1,224 @@
+package com.inoka.inoka_app.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class GameTest {
+
+    @Test
+    public void sameSeedReplaysGameTest() {
+        /*
+         *  Two games created with the same seed, given the same players in the same order,
+         *  must deal the same decks, roll the same initiative and deal the same damage.
+         */
+        List<Integer> firstRolls = playScriptedGame(42L);
+        List<Integer> secondRolls = playScriptedGame(42L);
+
+        Assertions.assertEquals(firstRolls, secondRolls);
+        Assertions.assertNotEquals(firstRolls, playScriptedGame(43L));
+    }
+
+    @Test
+    public void checkpointedGameContinuesTest() throws IOException {
+        /*
+         *  A game written with GameCodec mid-clash and read back
+         *  must hold the same cards and make the same rolls from there on as the original.
+         */
+        Game original = new Game("checkpoint", 7L);
+        Player pOne = new Player("Player One");
+        Player pTwo = new Player("Player Two");
+        original.addPlayer(pOne);
+        original.addPlayer(pTwo);
+        original.addCardInPlay(pOne.getId(), pOne.takeCardFromDeck(pOne.getDeck().get(0).getId()));
+        original.addCardInPlay(pTwo.getId(), pTwo.takeCardFromDeck(pTwo.getDeck().get(0).getId()));
+        original.dealDamage(pOne.getId(), pTwo.getId());
+        original.setState(GameState.CLASH_PLAYER_TURN);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        GameCodec.write(original, new DataOutputStream(bytes));
+        Game restored = GameCodec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        Assertions.assertEquals(original.getId(), restored.getId());
+        Assertions.assertEquals(original.getState(), restored.getState());
+        Assertions.assertEquals(original.getCardsInPlay().get(pTwo.getId()).getCurHp(), restored.getCardsInPlay().get(pTwo.getId()).getCurHp());
+        Assertions.assertEquals(cardIds(pOne), cardIds(restored.getPlayer(pOne.getId())));
+        for (int i = 0; i < 3; i++) {
+            Assertions.assertEquals(original.dealDamage(pTwo.getId(), pOne.getId()), restored.dealDamage(pTwo.getId(), pOne.getId()));
+        }
+    }
+
+    @Test
+    public void initiativeOrderTest() {
+        /*
+         *  Turns go from the highest initiative down, wrapping around after the lowest.
+         *  Values already held are refused, and a player re-rolling gives up their old value.
+         */
+        Game game = new Game("initiative", 1L);
+        Player pOne = playerWithInitiative(game, "Player One", 9);
+        Player pTwo = playerWithInitiative(game, "Player Two", 4);
+        Player pThree = playerWithInitiative(game, "Player Three", 12);
+
+        pTwo.setInitiative(12);
+        Assertions.assertFalse(game.addPlayerInitiativeToMap(pTwo));
+        pTwo.setInitiative(6);
+        Assertions.assertTrue(game.addPlayerInitiativeToMap(pTwo));
+        Assertions.assertEquals(3, game.numInitiatives());
+        Assertions.assertEquals(List.of(6, 9, 12), new ArrayList<>(game.getInitiativeMap().keySet()));
+
+        Assertions.assertEquals(12, game.determineNextInitiativeValue());
+        Assertions.assertEquals(9, game.determineNextInitiativeValue());
+        Assertions.assertEquals(6, game.determineNextInitiativeValue());
+        Assertions.assertEquals(12, game.determineNextInitiativeValue());
+        Assertions.assertEquals(pThree.getId(), game.getInitiativeMap().get(game.getCurrentInitiativeValue()));
+
+        Assertions.assertEquals(9, game.removePlayerFromInitiative(pOne));
+        Assertions.assertEquals(-1, game.removePlayerFromInitiative(pOne));
+        Assertions.assertEquals(6, game.determineNextInitiativeValue());
+    }
+
+    @Test
+    public void currentPlayerLeavesInitiativeTest() {
+        /*
+         *  When the player whose turn it is leaves the order (e.g. forfeits on their turn),
+         *  the turn passes to whoever followed them, wrapping around if they were last.
+         */
+        Game game = new Game("forfeit", 1L);
+        Player pOne = playerWithInitiative(game, "Player One", 10);
+        Player pTwo = playerWithInitiative(game, "Player Two", 7);
+        Player pThree = playerWithInitiative(game, "Player Three", 2);
+
+        Assertions.assertEquals(10, game.determineNextInitiativeValue());
+        Assertions.assertEquals(7, game.determineNextInitiativeValue());
+        game.removePlayerFromInitiative(pTwo);
+        Assertions.assertEquals(2, game.determineNextInitiativeValue());
+
+        game.removePlayerFromInitiative(pThree);
+        Assertions.assertEquals(10, game.determineNextInitiativeValue());
+        game.removePlayerFromInitiative(pOne);
+        Assertions.assertEquals(-1, game.determineNextInitiativeValue());
+    }
+
+    @Test
+    public void packedCardsInPlayTest() {
+        /*
+         *  Card ids are numbered per game and never repeat across decks.
+         *  A card played by id leaves the deck, and damage never takes it below 0 hit points.
+         *  Damage is only dealt between two cards in play.
+         */
+        Game game = new Game("packed", 3L);
+        Player pOne = new Player("Player One");
+        Player pTwo = new Player("Player Two");
+        game.addPlayer(pOne);
+        game.addPlayer(pTwo);
+        List<String> ids = cardIds(pOne);
+        ids.addAll(cardIds(pTwo));
+        Assertions.assertEquals(18L, ids.stream().distinct().count());
+
+        String cardId = pOne.getDeck().get(3).getId();
+        Assertions.assertFalse(game.playCardFromDeck(pOne.getId(), "not-a-card"));
+        Assertions.assertTrue(game.playCardFromDeck(pOne.getId(), cardId));
+        Assertions.assertFalse(game.playCardFromDeck(pOne.getId(), cardId));
+        Assertions.assertEquals(8, pOne.deckSize());
+        Assertions.assertTrue(game.playCardFromDeck(pTwo.getId(), pTwo.getDeck().get(0).getId()));
+        Assertions.assertEquals(2, game.numCardsInPlay());
+
+        for (int i = 0; i < 40; i++) game.dealDamage(pTwo.getId(), pOne.getId());
+        Card defeated = game.getPlayerCardInPlay(pOne.getId());
+        Assertions.assertEquals(cardId, defeated.getId());
+        Assertions.assertEquals(0, defeated.getCurHp());
+
+        game.playerGiveTotem(pOne.getId());
+        Assertions.assertTrue(game.getPlayerCardInPlay(pOne.getId()).isHasTotem());
+        Assertions.assertTrue(game.getPlayerCardInPlay(pOne.getId()).getCurHp() > 0);
+        Assertions.assertEquals(defeated.getId(), game.removeCardInPlay(pOne.getId()).getId());
+        Assertions.assertFalse(game.hasCardInPlay(pOne.getId()));
+
+        // No card in play, no damage either way
+        int pTwoHp = game.getPlayerCardInPlay(pTwo.getId()).getCurHp();
+        Assertions.assertEquals(-1, game.dealDamage(pOne.getId(), pTwo.getId()));
+        Assertions.assertEquals(-1, game.dealDamage(pTwo.getId(), pOne.getId()));
+        Assertions.assertEquals(pTwoHp, game.getPlayerCardInPlay(pTwo.getId()).getCurHp());
+        Assertions.assertFalse(game.hasCardInPlay(pOne.getId()));
+    }
+
+    @Test
+    public void deckIndexedByIdTest() {
+        /*
+         *  Cards are the same card only when their ids match, however alike their stats.
+         *  A played card leaves a gap that only that card can fill again, and the deck keeps its dealt order.
+         */
+        Game game = new Game("deck", 5L);
+        Player pOne = new Player("Player One");
+        Player pTwo = new Player("Player Two");
+        game.addPlayer(pOne);
+        game.addPlayer(pTwo);
+        List<Card> deck = pOne.getDeck();
+        Card first = deck.get(0);
+
+        Assertions.assertEquals(first, pOne.getDeck().get(0));
+        Assertions.assertEquals(first.hashCode(), pOne.getDeck().get(0).hashCode());
+        Assertions.assertNotEquals(first, deck.get(1));
+
+        Card played = pOne.takeCardFromDeck(deck.get(4).getId());
+        Assertions.assertEquals(deck.get(4), played);
+        Assertions.assertNull(pOne.takeCardFromDeck(played.getId()));
+        Assertions.assertNull(pOne.takeCardFromDeck(pTwo.getDeck().get(0).getId()));
+        Assertions.assertFalse(pTwo.addCardToDeck(played));
+        Assertions.assertTrue(pOne.addCardToDeck(played));
+        Assertions.assertFalse(pOne.addCardToDeck(played));
+        Assertions.assertEquals(deck, pOne.getDeck());
+
+        pOne.removeCardFromDeck(first);
+        Assertions.assertEquals(8, pOne.deckSize());
+        Assertions.assertEquals(deck.subList(1, 9), pOne.getDeck());
+    }
+
+    private static Player playerWithInitiative(Game game, String name, int initiative) {
+        Player player = new Player(name);
+        game.addPlayer(player);
+        player.setInitiative(initiative);
+        Assertions.assertTrue(game.addPlayerInitiativeToMap(player));
+        return player;
+    }
+
+    private static List<String> cardIds(Player player) {
+        List<String> ids = new ArrayList<>();
+        for (Card card : player.getDeck()) ids.add(card.getId());
+        return ids;
+    }
+
+    // Returns every value the game rolled, in order
+    private static List<Integer> playScriptedGame(long seed) {
+        Game game = new Game("replay", seed);
+        Player pOne = new Player("Player One");
+        Player pTwo = new Player("Player Two");
+        game.addPlayer(pOne);
+        game.addPlayer(pTwo);
+
+        List<Integer> rolls = new ArrayList<>();
+        for (Player player : List.of(pOne, pTwo)) {
+            rolls.add(player.getInitiative());
+            for (Card card : player.getDeck()) {
+                rolls.add(card.getStyle().ordinal());
+                rolls.add(card.getLevel());
+                rolls.add(card.getMaxHp());
+            }
+        }
+
+        game.addCardInPlay(pOne.getId(), pOne.getDeck().get(0));
+        game.addCardInPlay(pTwo.getId(), pTwo.getDeck().get(0));
+        for (int i = 0; i < 5; i++) {
+            rolls.add(game.dealDamage(pOne.getId(), pTwo.getId()));
+            rolls.add(game.dealDamage(pTwo.getId(), pOne.getId()));
+        }
+        return rolls;
+    }
+}
@@ -0,0 +1,93 @@
+package com.inoka.inoka_app.service;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.inoka.inoka_app.model.Action;
+import com.inoka.inoka_app.model.Card;
+import com.inoka.inoka_app.model.Game;
+import com.inoka.inoka_app.model.GameState;
+import com.inoka.inoka_app.model.Player;
+
+public class BotPolicyTest {
+
+    @Test
+    public void botActsOnlyForItselfTest() {
+        /*
+         *  A bot readies up once, plays its strongest card while drawing,
+         *  and only attacks on its own turn.
+         */
+        Game game = new Game("bots", 21L);
+        Player human = new Player("Human");
+        Player bot = new Player(Player.BOT_ID_PREFIX + "one", "Bot 2");
+        game.addPlayer(human);
+        game.addPlayer(bot);
+        Assertions.assertTrue(bot.isBot());
+        Assertions.assertFalse(human.isBot());
+
+        Assertions.assertEquals(BotPolicy.Kind.READY, BotPolicy.decide(game, bot, null).kind());
+        bot.setReady(true);
+        Assertions.assertNull(BotPolicy.decide(game, bot, null));
+
+        game.setState(GameState.DRAWING_CARDS);
+        BotPolicy.Move play = BotPolicy.decide(game, bot, null);
+        Assertions.assertEquals(BotPolicy.Kind.PLAY_CARD, play.kind());
+        Card strongest = bot.getDeck().stream().filter(card -> card.getId().equals(play.arg())).findFirst().orElseThrow();
+        for (Card card : bot.getDeck()) Assertions.assertTrue(card.getCurHp() <= strongest.getCurHp());
+        Assertions.assertTrue(game.playCardFromDeck(bot.getId(), play.arg()));
+        Assertions.assertNull(BotPolicy.decide(game, bot, null));
+        game.playCardFromDeck(human.getId(), human.getDeck().get(0).getId());
+
+        game.setState(GameState.CLASH_ROLL_INIT);
+        Assertions.assertEquals(BotPolicy.Kind.ROLL_INITIATIVE, BotPolicy.decide(game, bot, null).kind());
+        game.rollPlayerInitiative(bot.getId());
+        game.rollPlayerInitiative(human.getId());
+        Assertions.assertNull(BotPolicy.decide(game, bot, null));
+
+        game.setState(GameState.CLASH_PLAYER_TURN);
+        game.determineNextInitiativeValue();
+        if (!bot.getId().equals(game.getCurrentPlayerId())) {
+            Assertions.assertNull(BotPolicy.decide(game, bot, null));
+            game.determineNextInitiativeValue();
+        }
+        BotPolicy.Move attack = BotPolicy.decide(game, bot, null);
+        Assertions.assertEquals(BotPolicy.Kind.ATTACK, attack.kind());
+        Assertions.assertEquals(human.getId(), attack.arg());
+    }
+
+    @Test
+    public void knockoutPickedUpOnceTest() {
+        /*
+         *  A bot that knocked out a card picks up the knockout once,
+         *  and a bot knocked out with no cards left forfeits the clash.
+         */
+        Game game = new Game("knockout", 8L);
+        Player human = new Player("Human");
+        Player bot = new Player(Player.BOT_ID_PREFIX + "two", "Bot 2");
+        game.addPlayer(human);
+        game.addPlayer(bot);
+        game.playCardFromDeck(human.getId(), human.getDeck().get(0).getId());
+        game.playCardFromDeck(bot.getId(), bot.getDeck().get(0).getId());
+        game.rollPlayerInitiative(human.getId());
+        game.rollPlayerInitiative(bot.getId());
+
+        int damage = 0;
+        while (game.getPlayerCardInPlay(human.getId()).getCurHp() > 0) damage = game.dealDamage(bot.getId(), human.getId());
+        game.setLastAction(bot.getId(), human.getId(), damage);
+        game.setState(GameState.CLASH_PROCESSING_DECISION);
+        Action knockout = game.getLastAction();
+        Assertions.assertEquals(BotPolicy.Kind.PICK_UP_KNOCKOUT, BotPolicy.decide(game, bot, null).kind());
+        Assertions.assertNull(BotPolicy.decide(game, bot, knockout));
+
+        // The same again with the bot on the receiving end and its deck used up
+        while (bot.deckSize() > 0) bot.takeCardFromDeck(bot.getDeck().get(0).getId());
+        game.removeCardInPlay(human.getId());
+        game.playCardFromDeck(human.getId(), human.getDeck().get(0).getId());
+        while (game.getPlayerCardInPlay(bot.getId()).getCurHp() > 0) damage = game.dealDamage(human.getId(), bot.getId());
+        game.setLastAction(human.getId(), bot.getId(), damage);
+        Assertions.assertEquals(BotPolicy.Kind.REMOVE_CARD, BotPolicy.decide(game, bot, knockout).kind());
+        game.removeCardInPlay(bot.getId());
+        game.setState(GameState.CLASH_PLAYER_REPLACING_CARD);
+        Assertions.assertEquals(BotPolicy.Kind.FORFEIT, BotPolicy.decide(game, bot, knockout).kind());
+    }
+}
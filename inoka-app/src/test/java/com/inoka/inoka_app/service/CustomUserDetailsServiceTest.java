@@ -0,0 +1,57 @@
+package com.inoka.inoka_app.service;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.inoka.inoka_app.model.Player;
+import com.inoka.inoka_app.repositories.PlayerRepository;
+import com.inoka.inoka_app.security.PlayerPrincipal;
+
+public class CustomUserDetailsServiceTest {
+
+    @Test
+    public void concurrentLoadsShareOneQueryTest() throws Exception {
+        /*
+         *  Callers asking for a player while its row is being loaded wait for that load instead of querying again,
+         *  and an eviction during the load keeps the row it read out of the cache.
+         */
+        Player player = new Player("Player One");
+        PlayerRepository playerRepository = mock(PlayerRepository.class);
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        when(playerRepository.findById(player.getId())).thenAnswer(invocation -> {
+            loadStarted.countDown();
+            releaseLoad.await();
+            return Optional.of(player);
+        }).thenReturn(Optional.of(player));
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(playerRepository, 100, Duration.ofMinutes(5));
+
+        CompletableFuture<PlayerPrincipal> first = CompletableFuture.supplyAsync(() -> userDetailsService.loadUserById(player.getId()));
+        Assertions.assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<PlayerPrincipal> second = new CompletableFuture<>();
+        Thread waiter = new Thread(() -> second.complete(userDetailsService.loadUserById(player.getId())));
+        waiter.start();
+        // Parked on the first caller's load
+        while (waiter.getState() != Thread.State.WAITING) Thread.onSpinWait();
+        userDetailsService.evictPlayer(player.getId());
+        releaseLoad.countDown();
+
+        Assertions.assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        verify(playerRepository, times(1)).findById(player.getId());
+
+        // Evicted while loading, so the next caller reads the row again
+        userDetailsService.loadUserById(player.getId());
+        verify(playerRepository, times(2)).findById(player.getId());
+    }
+}
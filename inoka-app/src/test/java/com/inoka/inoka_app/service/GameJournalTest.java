@@ -0,0 +1,100 @@
+package com.inoka.inoka_app.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class GameJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void replayAcrossSegmentsTest() {
+        /*
+         *  Records appended by one run are replayed in order by the next,
+         *  including ones that went into later segments once the first filled up.
+         */
+        List<JournalRecord> written = sampleRecords(50);
+        GameJournal first = newJournal();
+        first.replay((record, lsn) -> Assertions.fail("Fresh journal replayed " + record));
+        for (JournalRecord record : written) first.append(record);
+        first.shutdown();
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        GameJournal second = newJournal();
+        second.replay((record, lsn) -> replayed.add(record));
+        second.shutdown();
+
+        Assertions.assertEquals(written, replayed);
+        Assertions.assertEquals(written.size(), second.lastLsn());
+    }
+
+    @Test
+    public void tornRecordEndsReplayTest() throws IOException {
+        /*
+         *  A record cut short by a crash fails its checksum,
+         *  replay keeps everything before it and drops it.
+         */
+        List<JournalRecord> written = sampleRecords(3);
+        GameJournal first = newJournal();
+        first.replay((record, lsn) -> {});
+        for (JournalRecord record : written) first.append(record);
+        first.shutdown();
+
+        // Flip the last byte of the last record's body
+        Path segment;
+        try (var files = Files.list(directory)) {
+            segment = files.sorted().reduce((a, b) -> b).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            channel.read(buffer, 0);
+            int end = 0;
+            int lastBodyEnd = 0;
+            while (buffer.getInt(end) > 0) {
+                lastBodyEnd = end + 16 + buffer.getInt(end);
+                end = lastBodyEnd;
+            }
+            channel.write(ByteBuffer.wrap(new byte[] { (byte) ~buffer.get(lastBodyEnd - 1) }), lastBodyEnd - 1);
+        }
+
+        List<JournalRecord> replayed = new ArrayList<>();
+        GameJournal second = newJournal();
+        second.replay((record, lsn) -> replayed.add(record));
+        second.shutdown();
+
+        Assertions.assertEquals(written.subList(0, 2), replayed);
+    }
+
+    private GameJournal newJournal() {
+        // Small segments, so a few dozen records span several of them
+        return new GameJournal(new SimpleMeterRegistry(), true, directory.toString(), DataSize.ofBytes(1024), Duration.ofMillis(5));
+    }
+
+    private static List<JournalRecord> sampleRecords(int count) {
+        String gameId = UUID.randomUUID().toString();
+        String playerId = UUID.randomUUID().toString();
+        List<JournalRecord> records = new ArrayList<>();
+        records.add(JournalRecord.created(gameId, "", 42L));
+        records.add(JournalRecord.ofPlayer(JournalRecord.Type.JOINED, gameId, playerId, "Player One"));
+        while (records.size() < count) {
+            records.add(JournalRecord.ofPlayer(JournalRecord.Type.DAMAGE_DEALT, gameId, playerId, "null"));
+        }
+        return records;
+    }
+}
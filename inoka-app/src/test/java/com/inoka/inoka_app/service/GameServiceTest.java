@@ -42,17 +42,17 @@ public class GameServiceTest {
          */
         
         // Fill up first lobby with passcode 123
-        gameService.createGame("123", new Player("Player One"));
-        gameService.createGame("123", new Player("Player Two"));
-        gameService.createGame("123", new Player("Player Three"));
-        gameService.createGame("123", new Player("Player Four"));
-        gameService.createGame("123", new Player("Player Five"));
-        Game testOne = gameService.createGame("123", new Player("Player Six"));
+        gameService.createGame("123", new Player("Player One")).join();
+        gameService.createGame("123", new Player("Player Two")).join();
+        gameService.createGame("123", new Player("Player Three")).join();
+        gameService.createGame("123", new Player("Player Four")).join();
+        gameService.createGame("123", new Player("Player Five")).join();
+        Game testOne = gameService.createGame("123", new Player("Player Six")).join();
 
         Assertions.assertTrue(testOne.numPlayers() == 6);
         
         // Attempt to join lobby with same passcode
-        Game testTwo = gameService.createGame("123", new Player("Player Seven"));
+        Game testTwo = gameService.createGame("123", new Player("Player Seven")).join();
 
         Assertions.assertTrue(testTwo.numPlayers() == 1);
     }
@@ -72,7 +72,7 @@ public class GameServiceTest {
         Player pFive = new Player("Player Five");
         Player pSix = new Player("Player Six");
 
-        Game testGame = gameService.createGame("readyTest", pOne);
+        Game testGame = gameService.createGame("readyTest", pOne).join();
         
         pOne.setGameId(testGame.getId());
         pTwo.setGameId(testGame.getId());
@@ -90,39 +90,39 @@ public class GameServiceTest {
 
         Assertions.assertTrue(testGame.getState() == GameState.WAITING_FOR_PLAYERS);
 
-        gameService.createGame("readyTest", pTwo);
-        gameService.createGame("readyTest", pThree);
-        gameService.createGame("readyTest", pFour);
-        gameService.createGame("readyTest", pFive);
-        gameService.createGame("readyTest", pSix);
+        gameService.createGame("readyTest", pTwo).join();
+        gameService.createGame("readyTest", pThree).join();
+        gameService.createGame("readyTest", pFour).join();
+        gameService.createGame("readyTest", pFive).join();
+        gameService.createGame("readyTest", pSix).join();
         
         // Asserts all players have been added to testGame object
         Assertions.assertTrue(testGame.numPlayers() == 6);
 
         // Players aren't ready yet
-        Assertions.assertTrue(gameService.allPlayersReady(testGame.getId()).isPresent());
-        Assertions.assertFalse(gameService.allPlayersReady(testGame.getId()).get());
+        Assertions.assertTrue(gameService.allPlayersReady(testGame.getId()).join().isPresent());
+        Assertions.assertFalse(gameService.allPlayersReady(testGame.getId()).join().get());
         
         // If front-end receives allPlayersReady == true, it calls startGame()
-        Assertions.assertFalse(gameService.setGameStart(testGame.getId()));
+        Assertions.assertFalse(gameService.setGameStart(testGame.getId()).join());
 
-        Assertions.assertTrue(gameService.setPlayerReady(pOne.getId()));
+        Assertions.assertTrue(gameService.setPlayerReady(pOne.getId()).join());
 
         Assertions.assertTrue(gameService.getGameById(testGame.getId()).get().getPlayer(pOne.getId()).isReady());
 
-        gameService.setPlayerReady(pTwo.getId());
-        gameService.setPlayerReady(pThree.getId());
-        gameService.setPlayerReady(pFour.getId());
-        gameService.setPlayerReady(pFive.getId());
+        gameService.setPlayerReady(pTwo.getId()).join();
+        gameService.setPlayerReady(pThree.getId()).join();
+        gameService.setPlayerReady(pFour.getId()).join();
+        gameService.setPlayerReady(pFive.getId()).join();
 
         // Not all players are ready
-        // Assertions.assertFalse(gameService.allPlayersReady(testGame.getId()).get());
+        // Assertions.assertFalse(gameService.allPlayersReady(testGame.getId()).join().get());
 
-        gameService.setPlayerReady(pSix.getId());
-        Assertions.assertTrue(gameService.allPlayersReady(testGame.getId()).get());
+        gameService.setPlayerReady(pSix.getId()).join();
+        Assertions.assertTrue(gameService.allPlayersReady(testGame.getId()).join().get());
 
         // Now startGame() should work
-        Assertions.assertTrue(gameService.setGameStart(testGame.getId()));
+        Assertions.assertTrue(gameService.setGameStart(testGame.getId()).join());
     }
 
     @Test
@@ -136,7 +136,7 @@ public class GameServiceTest {
         Player pOne = new Player("Player One");
         Player pTwo = new Player("Player Two");
 
-        Game testGame = gameService.createGame("readyTest", pOne);
+        Game testGame = gameService.createGame("readyTest", pOne).join();
         
         pOne.setGameId(testGame.getId());
         pTwo.setGameId(testGame.getId());
@@ -146,31 +146,36 @@ public class GameServiceTest {
 
         Assertions.assertTrue(testGame.getState() == GameState.WAITING_FOR_PLAYERS);
 
-        gameService.createGame("readyTest", pTwo);
+        gameService.createGame("readyTest", pTwo).join();
 
         Assertions.assertTrue(testGame.numPlayers() == 2);
 
         // Players aren't ready yet
-        Assertions.assertTrue(gameService.allPlayersReady(testGame.getId()).isPresent());
-        Assertions.assertFalse(gameService.allPlayersReady(testGame.getId()).get());
+        Assertions.assertTrue(gameService.allPlayersReady(testGame.getId()).join().isPresent());
+        Assertions.assertFalse(gameService.allPlayersReady(testGame.getId()).join().get());
 
-        gameService.setPlayerReady(pOne.getId());
-        gameService.setPlayerReady(pTwo.getId());
+        gameService.setPlayerReady(pOne.getId()).join();
+        gameService.setPlayerReady(pTwo.getId()).join();
 
         // Front-end calls startGame()
-        Assertions.assertTrue(gameService.setGameStart(testGame.getId()));
+        Assertions.assertTrue(gameService.setGameStart(testGame.getId()).join());
         // No cards in play
         Assertions.assertTrue(gameService.getGameById(testGame.getId()).get().getCardsInPlay().size() == 0);
 
         // When in game, players receive their hand via the fetchCard() method in the HandComponent
-        Assertions.assertTrue(gameService.getPlayerDeck(pOne.getId()).get().size() == 9);
+        Assertions.assertTrue(gameService.getPlayerDeck(pOne.getId()).join().get().size() == 9);
 
         Card cardToPlay = pOne.getDeck().get(0);
 
         // The player then chooses a card to put in play, which calls putCardInPlay()
-        Assertions.assertTrue(gameService.putCardInPlay(pOne.getId(), cardToPlay));
+        Assertions.assertTrue(gameService.putCardInPlay(pOne.getId(), cardToPlay.getId()).join());
 
         // Verify card has been put in play
         Assertions.assertTrue(gameService.getGameById(testGame.getId()).get().getCardsInPlay().size() > 0);
+        Assertions.assertEquals(cardToPlay.getId(), gameService.getGameById(testGame.getId()).get().getPlayerCardInPlay(pOne.getId()).getId());
+
+        // A card is played by id, one no longer in the deck is rejected
+        Assertions.assertFalse(gameService.putCardInPlay(pOne.getId(), cardToPlay.getId()).join());
+        Assertions.assertTrue(gameService.getPlayerDeck(pOne.getId()).join().get().size() == 8);
     }
 }
@@ -0,0 +1,97 @@
+package com.inoka.inoka_app.service;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.inoka.inoka_app.model.Player;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PlayerRegistrarTest {
+
+    @Test
+    public void concurrentRegistrationsShareBatchTest() throws Exception {
+        /*
+         *  Registrations arriving while a batch is being inserted go out together in the next batch,
+         *  and each caller's future completes with its own player.
+         */
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        CountDownLatch firstInsertStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstInsert = new CountDownLatch(1);
+        List<Integer> batchSizes = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            List<?> rows = invocation.getArgument(1);
+            synchronized (batchSizes) {
+                batchSizes.add(rows.size());
+            }
+            firstInsertStarted.countDown();
+            releaseFirstInsert.await();
+            return new int[rows.size()];
+        });
+        PlayerRegistrar registrar = new PlayerRegistrar(jdbcTemplate, new SimpleMeterRegistry(), 500, 1000);
+
+        CompletableFuture<Player> first = registrar.register(new Player("First"));
+        Assertions.assertTrue(firstInsertStarted.await(5, TimeUnit.SECONDS));
+        List<Player> waiting = new ArrayList<>();
+        for (int i = 0; i < 10; i++) waiting.add(new Player("Guest " + i));
+        CompletableFuture<List<Player>> rest = registrar.registerAll(waiting);
+        releaseFirstInsert.countDown();
+
+        Assertions.assertEquals("First", first.get(5, TimeUnit.SECONDS).getName());
+        Assertions.assertEquals(waiting, rest.get(5, TimeUnit.SECONDS));
+        synchronized (batchSizes) {
+            Assertions.assertEquals(List.of(1, 10), batchSizes);
+        }
+        registrar.shutdown();
+    }
+
+    @Test
+    public void registrationsFailOnceShutDownTest() throws Exception {
+        /*
+         *  Registrations still queued at shutdown complete even if their insert throws,
+         *  and registering after shutdown fails at once instead of waiting for a writer that is gone.
+         */
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        CountDownLatch insertStarted = new CountDownLatch(1);
+        CountDownLatch releaseInsert = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            insertStarted.countDown();
+            releaseInsert.await();
+            throw new IllegalStateException("Connection lost");
+        });
+        when(jdbcTemplate.update(anyString(), any(Object[].class))).thenThrow(new IllegalStateException("Connection lost"));
+        PlayerRegistrar registrar = new PlayerRegistrar(jdbcTemplate, new SimpleMeterRegistry(), 500, 1000);
+
+        CompletableFuture<Player> first = registrar.register(new Player("First"));
+        Assertions.assertTrue(insertStarted.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Player> queued = registrar.register(new Player("Queued"));
+        Thread shutdown = Thread.ofVirtual().start(() -> {
+            try {
+                registrar.shutdown();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        releaseInsert.countDown();
+        shutdown.join(5000);
+
+        Assertions.assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        Assertions.assertThrows(ExecutionException.class, () -> queued.get(5, TimeUnit.SECONDS));
+        Assertions.assertThrows(ExecutionException.class, () -> registrar.register(new Player("Late")).get(5, TimeUnit.SECONDS));
+    }
+}
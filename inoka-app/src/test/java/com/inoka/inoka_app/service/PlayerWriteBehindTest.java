@@ -0,0 +1,68 @@
+package com.inoka.inoka_app.service;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.inoka.inoka_app.model.Player;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PlayerWriteBehindTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void repeatedWritesMergeTest() {
+        /*
+         *  Several updates to one player before a flush become a single row, each column with its latest value,
+         *  a column nobody changed is left out of the UPDATE,
+         *  and the player's cached principal is dropped only once the row is written.
+         */
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        CustomUserDetailsService userDetailsService = mock(CustomUserDetailsService.class);
+        // Long interval, the test flushes by hand
+        PlayerWriteBehind writeBehind = new PlayerWriteBehind(jdbcTemplate, userDetailsService, new SimpleMeterRegistry(), 100, 50, Duration.ofHours(1));
+
+        Player player = new Player("Player One");
+        Player other = new Player("Player Two");
+        player.setGameId("game-1");
+        writeBehind.queueGameId(player);
+        writeBehind.queueName(player.getId(), "Renamed");
+        // Leaving the game after the rename keeps the new name
+        player.clearGameId();
+        writeBehind.queueGameId(player);
+        writeBehind.queueName(other.getId(), "Other");
+        Assertions.assertEquals(2, writeBehind.pendingCount());
+        verify(userDetailsService, never()).evictPlayer(anyString());
+
+        writeBehind.flush();
+
+        ArgumentCaptor<List<Object[]>> both = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<Object[]>> names = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(PlayerWriteBehind.UPDATE_SQL), both.capture());
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(PlayerWriteBehind.UPDATE_NAME_SQL), names.capture());
+        verify(jdbcTemplate, never()).batchUpdate(eq(PlayerWriteBehind.UPDATE_GAME_ID_SQL), anyList());
+        Assertions.assertEquals(1, both.getValue().size());
+        Assertions.assertArrayEquals(new Object[] { "Renamed", player.getGameId(), player.getId() }, both.getValue().get(0));
+        Assertions.assertArrayEquals(new Object[] { "Other", other.getId() }, names.getValue().get(0));
+        verify(userDetailsService).evictPlayer(eq(player.getId()));
+        Assertions.assertEquals(0, writeBehind.pendingCount());
+
+        // Nothing pending, nothing written
+        writeBehind.flush();
+        verify(jdbcTemplate, times(2)).batchUpdate(anyString(), anyList());
+        writeBehind.shutdown();
+    }
+}
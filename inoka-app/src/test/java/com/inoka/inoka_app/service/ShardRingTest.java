@@ -0,0 +1,70 @@
+package com.inoka.inoka_app.service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class ShardRingTest {
+
+    private static final List<String> NODES = List.of("http://localhost:8080", "http://localhost:8081", "http://localhost:8082");
+    private static final int KEYS = 30_000;
+
+    @Test
+    public void evenSpreadTest() {
+        /*
+         *  With the default number of virtual nodes, no node owns far more or far fewer keys than its share.
+         */
+        ShardRing ring = new ShardRing(NODES, 128);
+        Map<String, Integer> owned = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) owned.merge(ring.ownerOf(UUID.randomUUID().toString()), 1, Integer::sum);
+
+        Assertions.assertEquals(NODES.size(), owned.size());
+        int share = KEYS / NODES.size();
+        for (Map.Entry<String, Integer> entry : owned.entrySet()) {
+            Assertions.assertTrue(Math.abs(entry.getValue() - share) < share * 0.2,
+                entry.getKey() + " owns " + entry.getValue() + " of " + KEYS + " keys");
+        }
+    }
+
+    @Test
+    public void addedNodeOnlyTakesKeysTest() {
+        /*
+         *  Adding a node moves keys only to the new node, and about its share of them.
+         *  Every other key keeps its owner, so games already running stay where they are.
+         */
+        ShardRing before = new ShardRing(NODES, 128);
+        String added = "http://localhost:8083";
+        ShardRing after = new ShardRing(List.of(NODES.get(0), NODES.get(1), NODES.get(2), added), 128);
+
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String key = UUID.randomUUID().toString();
+            String oldOwner = before.ownerOf(key);
+            String newOwner = after.ownerOf(key);
+            if (!oldOwner.equals(newOwner)) {
+                Assertions.assertEquals(added, newOwner);
+                moved++;
+            }
+        }
+        int share = KEYS / 4;
+        Assertions.assertTrue(Math.abs(moved - share) < share * 0.2, moved + " of " + KEYS + " keys moved");
+    }
+
+    @Test
+    public void ownerIsStableTest() {
+        /*
+         *  Every node builds the same ring, whatever order it lists the nodes in.
+         */
+        ShardRing ring = new ShardRing(NODES, 128);
+        ShardRing reordered = new ShardRing(List.of(NODES.get(2), NODES.get(0), NODES.get(1)), 128);
+        for (int i = 0; i < 1000; i++) {
+            String key = UUID.randomUUID().toString();
+            Assertions.assertEquals(ring.ownerOf(key), reordered.ownerOf(key));
+        }
+        Assertions.assertEquals(ShardRing.hash("lobby:1234"), ShardRing.hash("lobby:1234"));
+    }
+}
@@ -0,0 +1,43 @@
+package com.inoka.inoka_app.simulation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+public class BalanceSimulatorTest {
+
+    @Test
+    public void sameSeedSameResultsTest() {
+        /*
+         *  A run is reproducible from its seed, however many threads play it.
+         */
+        BalanceSimulator.Settings settings = new BalanceSimulator.Settings(1000, 600, 4, 6, 11L);
+        String singleThreaded = report(BalanceSimulator.run(settings, 1));
+
+        Assertions.assertEquals(singleThreaded, report(BalanceSimulator.run(settings, 4)));
+        Assertions.assertNotEquals(singleThreaded, report(BalanceSimulator.run(new BalanceSimulator.Settings(1000, 600, 4, 6, 12L), 4)));
+    }
+
+    @Test
+    public void everyGameIsCountedTest() {
+        /*
+         *  Every duel ends in a knockout or is counted as undecided, and every full game is recorded.
+         */
+        SimulationStats stats = BalanceSimulator.run(new BalanceSimulator.Settings(300, 300, 6, 6, 5L), 3);
+
+        Assertions.assertEquals(300L * 9, stats.totalDuels() + stats.duelsUndecided);
+        Assertions.assertEquals(300L, stats.games);
+        Assertions.assertTrue(stats.gamesFinished > 0);
+        long clashWins = 0;
+        for (long wins : stats.clashWins) clashWins += wins;
+        Assertions.assertTrue(clashWins <= stats.gameClashes);
+    }
+
+    private static String report(SimulationStats stats) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        stats.report(new PrintStream(bytes));
+        return bytes.toString();
+    }
+}
@@ -80,7 +80,7 @@ export class GameWebSocketService {
         if (this.stompClient && this.stompClient.connected) {
             this.stompClient.publish({
                 destination: "/app/clashStart",
-                body: gameId
+                body: JSON.stringify({ gameId })
             })
         }
     }
@@ -89,7 +89,7 @@ export class GameWebSocketService {
         if (this.stompClient && this.stompClient.connected) {
             this.stompClient.publish({
                 destination: "/app/clashNew",
-                body: gameId
+                body: JSON.stringify({ gameId })
             })
         }
     }
@@ -98,14 +98,15 @@ export class GameWebSocketService {
         if (this.stompClient && this.stompClient.connected) {
             this.stompClient.publish({
                 destination: "/app/clashProcessed",
-                body: gameId
+                body: JSON.stringify({ gameId })
             })
         }
     }
 
     playCard(playerId: string, card: Card): void {
         if (this.stompClient && this.stompClient.connected) {
-            const message = { playerId, card };
+            // Server resolves the card from the player's deck by id
+            const message = { playerId, cardId: card.id };
             this.stompClient.publish({
                 destination: "/app/playCard",
                 body: JSON.stringify(message)
@@ -127,7 +128,7 @@ export class GameWebSocketService {
         if (this.stompClient && this.stompClient.connected) {
             this.stompClient.publish({
                 destination: "/app/gotKnockout",
-                body: playerId
+                body: JSON.stringify({ playerId })
             })
         }
     }
@@ -136,7 +137,7 @@ export class GameWebSocketService {
         if (this.stompClient && this.stompClient.connected) {
             this.stompClient.publish({
                 destination: "/app/clashForfeit",
-                body: playerId
+                body: JSON.stringify({ playerId })
             })
         }
     }